@@ -0,0 +1,38 @@
+package com.luiz.libraryapi.reactive;
+
+import org.mapstruct.factory.Mappers;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Bean;
+
+import com.luiz.libraryapi.reactive.api.mapper.BookMapper;
+import com.luiz.libraryapi.reactive.api.mapper.LoanMapper;
+
+/**
+ * Variante reativa da library-api: mesmos contratos de /api/books e
+ * /api/loans, servidos pelo Netty com repositorios R2DBC, sem thread
+ * bloqueada esperando o banco. Sobe na porta 8081 para rodar ao lado da
+ * versao servlet (8080) e comparar as duas com o mesmo gerador de carga:
+ *
+ *   mvn spring-boot:run                                  (servlet, 8080)
+ *   mvn -f reactive/pom.xml spring-boot:run              (reativa, 8081)
+ *   mvn -Ploadtest verify -Dloadtest.url=http://localhost:8080
+ *   mvn -Ploadtest verify -Dloadtest.url=http://localhost:8081
+ */
+@SpringBootApplication
+public class LibraryApiReactiveApplication {
+
+	@Bean
+	public BookMapper bookMapper(){
+		return Mappers.getMapper(BookMapper.class);
+	}
+
+	@Bean
+	public LoanMapper loanMapper(){
+		return Mappers.getMapper(LoanMapper.class);
+	}
+
+	public static void main(String[] args) {
+		SpringApplication.run(LibraryApiReactiveApplication.class, args);
+	}
+}
@@ -0,0 +1,41 @@
+package com.luiz.libraryapi.reactive.api;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.luiz.libraryapi.reactive.api.exception.ApiErros;
+import com.luiz.libraryapi.reactive.exception.BusinessException;
+
+@RestControllerAdvice
+public class ApplicationControllerAdvice {
+
+	@ExceptionHandler(WebExchangeBindException.class)
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	public ApiErros handleValidationExceptions(WebExchangeBindException ex){
+		return new ApiErros(ex.getBindingResult());
+	}
+
+	@ExceptionHandler(BusinessException.class)
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	public ApiErros handleBusinessException(BusinessException ex){
+		return new ApiErros(ex);
+	}
+
+	@ExceptionHandler(OptimisticLockingFailureException.class)
+	public ResponseEntity<ApiErros> handleOptimisticLockingFailure( OptimisticLockingFailureException ex ){
+		ResponseStatusException conflict = new ResponseStatusException(HttpStatus.CONFLICT,
+				"Resource was changed by another request, reload it and try again");
+		return handleResponseStatusException(conflict);
+	}
+
+	@ExceptionHandler(ResponseStatusException.class)
+	public ResponseEntity<ApiErros> handleResponseStatusException( ResponseStatusException ex ){
+		return new ResponseEntity<>(new ApiErros(ex), ex.getStatus());
+	}
+}
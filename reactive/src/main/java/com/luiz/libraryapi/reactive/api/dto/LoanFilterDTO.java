@@ -0,0 +1,15 @@
+package com.luiz.libraryapi.reactive.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class LoanFilterDTO {
+	private String isbn;
+	private String customer;
+}
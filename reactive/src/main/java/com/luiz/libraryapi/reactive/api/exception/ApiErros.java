@@ -0,0 +1,33 @@
+package com.luiz.libraryapi.reactive.api.exception;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.validation.BindingResult;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.luiz.libraryapi.reactive.exception.BusinessException;
+
+/**
+ * Mesmo corpo de erro da versao servlet: {"errors": [...]}.
+ */
+public class ApiErros {
+	private List<String> errors;
+	public ApiErros(BindingResult bindingResult){
+		this.errors = new ArrayList<>();
+		bindingResult.getAllErrors().forEach( error -> this.errors.add(error.getDefaultMessage()));
+	}
+
+	public ApiErros(BusinessException ex){
+		this.errors = Arrays.asList(ex.getMessage());
+	}
+
+	public ApiErros(ResponseStatusException ex){
+		this.errors = Arrays.asList(ex.getReason());
+	}
+
+	public List<String> getErrors(){
+		return errors ;
+	}
+}
@@ -0,0 +1,16 @@
+package com.luiz.libraryapi.reactive.api.mapper;
+
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+import com.luiz.libraryapi.reactive.api.dto.BookDTO;
+import com.luiz.libraryapi.reactive.model.entity.Book;
+
+@Mapper
+public interface BookMapper {
+
+	BookDTO toDto(Book book);
+
+	@Mapping(target = "version", ignore = true)
+	Book toEntity(BookDTO dto);
+}
@@ -0,0 +1,23 @@
+package com.luiz.libraryapi.reactive.api.mapper;
+
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+import com.luiz.libraryapi.reactive.api.dto.LoanDTO;
+import com.luiz.libraryapi.reactive.model.entity.Book;
+import com.luiz.libraryapi.reactive.model.entity.Loan;
+
+/**
+ * Loan + Book -> LoanDTO. O livro vem a parte porque o Loan do R2DBC so
+ * guarda o id_book.
+ */
+@Mapper(uses = BookMapper.class)
+public interface LoanMapper {
+
+	@Mapping(target = "id", source = "loan.id")
+	@Mapping(target = "customer", source = "loan.customer")
+	@Mapping(target = "email", source = "loan.customerEmail")
+	@Mapping(target = "isbn", source = "book.isbn")
+	@Mapping(target = "book", source = "book")
+	LoanDTO toDto(Loan loan, Book book);
+}
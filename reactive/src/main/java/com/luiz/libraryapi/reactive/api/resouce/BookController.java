@@ -0,0 +1,77 @@
+package com.luiz.libraryapi.reactive.api.resouce;
+
+import javax.validation.Valid;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.luiz.libraryapi.reactive.api.dto.BookDTO;
+import com.luiz.libraryapi.reactive.api.mapper.BookMapper;
+import com.luiz.libraryapi.reactive.service.BookService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/api/books")
+@RequiredArgsConstructor
+@Slf4j
+public class BookController {
+
+	private final BookService service;
+	private final BookMapper bookMapper;
+
+	@PostMapping
+	@ResponseStatus (HttpStatus.CREATED)
+	public Mono<BookDTO> create(@RequestBody @Valid BookDTO dto) {
+		log.info("creating a book for isbn: {}", dto.getIsbn());
+		return service.save(bookMapper.toEntity(dto)).map(bookMapper::toDto);
+	}
+
+	@GetMapping("{id}")
+	public Mono<BookDTO> get (@PathVariable Long id) {
+		return service.getById(id)
+				.switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)))
+				.map(bookMapper::toDto);
+	}
+
+	@DeleteMapping("{id}")
+	@ResponseStatus(HttpStatus.NO_CONTENT)
+	public Mono<Void> delete (@PathVariable Long id) {
+		log.info(" deleting book of id: {} ", id);
+		return service.getById(id)
+				.switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)))
+				.flatMap(service::delete);
+	}
+
+	@PutMapping("{id}")
+	public Mono<BookDTO> update( @PathVariable Long id, @RequestBody @Valid BookDTO dto){
+		log.info(" updating book of id: {} ", id);
+		return service.getById(id)
+				.switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)))
+				.flatMap(book -> {
+					book.setAuthor(dto.getAuthor());
+					book.setTitle(dto.getTitle());
+					return service.update(book);
+				})
+				.map(bookMapper::toDto);
+	}
+
+	@GetMapping
+	public Mono<Page<BookDTO>> find(BookDTO dto, Pageable pageRequest){
+		return service.find(bookMapper.toEntity(dto), pageRequest)
+				.map(page -> page.map(bookMapper::toDto));
+	}
+}
@@ -0,0 +1,99 @@
+package com.luiz.libraryapi.reactive.api.resouce;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.luiz.libraryapi.reactive.api.dto.LoanDTO;
+import com.luiz.libraryapi.reactive.api.dto.LoanFilterDTO;
+import com.luiz.libraryapi.reactive.api.dto.ReturnedLoanDTO;
+import com.luiz.libraryapi.reactive.api.mapper.LoanMapper;
+import com.luiz.libraryapi.reactive.model.entity.Book;
+import com.luiz.libraryapi.reactive.model.entity.Loan;
+import com.luiz.libraryapi.reactive.service.BookService;
+import com.luiz.libraryapi.reactive.service.LoanService;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/api/loans")
+@RequiredArgsConstructor
+public class LoanController {
+
+    private final LoanService service;
+    private final BookService bookService;
+    private final LoanMapper loanMapper;
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<Long> create(@RequestBody LoanDTO dto) {
+        return bookService.getBookByIsbn(dto.getIsbn())
+                .switchIfEmpty(Mono.error(() ->
+                        new ResponseStatusException(HttpStatus.BAD_REQUEST, "Book not found for passed isbn")))
+                .flatMap(book -> service.save(Loan.builder()
+                        .bookId(book.getId())
+                        .customer(dto.getCustomer())
+                        .loanDate(LocalDate.now())
+                        .build()))
+                .map(Loan::getId);
+    }
+
+    @GetMapping("{id}")
+    public Mono<LoanDTO> get(@PathVariable Long id) {
+        return service.getById(id)
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)))
+                .flatMap(loan -> bookService.getById(loan.getBookId())
+                        .map(book -> loanMapper.toDto(loan, book)));
+    }
+
+    @PatchMapping("{id}")
+    public Mono<Void> returnBook(
+            @PathVariable Long id,
+            @RequestBody ReturnedLoanDTO dto) {
+        if (Boolean.TRUE.equals(dto.getReturned())) {
+            return service.returnLoan(id).flatMap(outcome -> {
+                switch (outcome) {
+                case NOT_FOUND:
+                    return Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND));
+                case ALREADY_RETURNED:
+                    return Mono.error(new ResponseStatusException(HttpStatus.CONFLICT, "Loan already returned"));
+                default:
+                    return Mono.empty();
+                }
+            });
+        }
+        return service.getById(id)
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)))
+                .flatMap(loan -> {
+                    loan.setReturned(dto.getReturned());
+                    return service.update(loan);
+                })
+                .then();
+    }
+
+    /**
+     * Busca a pagina e depois os livros dela numa unica consulta por id,
+     * como o join fetch da versao servlet.
+     */
+    @GetMapping
+    public Mono<Page<LoanDTO>> find(LoanFilterDTO dto, Pageable pageRequest) {
+        return service.find(dto, pageRequest).flatMap(page -> bookService
+                .getByIds(page.map(Loan::getBookId).toSet())
+                .collectMap(Book::getId, Function.identity())
+                .map((Map<Long, Book> books) -> page.map(loan -> loanMapper.toDto(loan, books.get(loan.getBookId())))));
+    }
+}
@@ -0,0 +1,19 @@
+package com.luiz.libraryapi.reactive.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.web.ReactivePageableHandlerMethodArgumentResolver;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.result.method.annotation.ArgumentResolverConfigurer;
+
+/**
+ * O Boot so registra o resolver de Pageable para o Spring MVC; sem ele o
+ * page/size/sort das listagens nao chegaria aos controllers.
+ */
+@Configuration
+public class WebConfig implements WebFluxConfigurer {
+
+	@Override
+	public void configureArgumentResolvers(ArgumentResolverConfigurer configurer) {
+		configurer.addCustomResolver(new ReactivePageableHandlerMethodArgumentResolver());
+	}
+}
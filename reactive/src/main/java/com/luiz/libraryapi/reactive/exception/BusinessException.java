@@ -0,0 +1,10 @@
+package com.luiz.libraryapi.reactive.exception;
+
+public class BusinessException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public BusinessException (String s) {
+		super(s);
+	}
+}
@@ -0,0 +1,30 @@
+package com.luiz.libraryapi.reactive.model.entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.relational.core.mapping.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Table ("book")
+public class Book {
+
+	@Id
+	private Long id;
+
+	private String title;
+
+	private String author;
+
+	private String isbn;
+
+	@Version
+	private Long version;
+}
@@ -0,0 +1,43 @@
+package com.luiz.libraryapi.reactive.model.entity;
+
+import java.time.LocalDate;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * R2DBC nao tem associacoes: o livro fica so pelo id_book e e buscado a
+ * parte quando a resposta precisa dele.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Table ("loan")
+public class Loan {
+
+	@Id
+	private Long id;
+
+	private String customer;
+
+	@Column ("customer_email")
+	private String customerEmail;
+
+	@Column ("id_book")
+	private Long bookId;
+
+	private LocalDate loanDate;
+
+	private Boolean returned;
+
+	@Version
+	private Long version;
+}
@@ -0,0 +1,14 @@
+package com.luiz.libraryapi.reactive.model.repository;
+
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+
+import com.luiz.libraryapi.reactive.model.entity.Book;
+
+import reactor.core.publisher.Mono;
+
+public interface BookRepository extends R2dbcRepository<Book, Long>, BookRepositoryCustom {
+
+	Mono<Boolean> existsByIsbn( String isbn );
+
+	Mono<Book> findByIsbn( String isbn );
+}
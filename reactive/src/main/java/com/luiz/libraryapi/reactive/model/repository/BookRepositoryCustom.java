@@ -0,0 +1,20 @@
+package com.luiz.libraryapi.reactive.model.repository;
+
+import org.springframework.data.domain.Pageable;
+
+import com.luiz.libraryapi.reactive.model.entity.Book;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Busca por exemplo paginada, que o R2dbcRepository nao oferece: cada campo
+ * preenchido do filtro vira um "contains" sem diferenciar maiusculas, como o
+ * ExampleMatcher da versao servlet.
+ */
+public interface BookRepositoryCustom {
+
+	Flux<Book> findByFilter( Book filter, Pageable pageable );
+
+	Mono<Long> countByFilter( Book filter );
+}
@@ -0,0 +1,44 @@
+package com.luiz.libraryapi.reactive.model.repository;
+
+import static org.springframework.data.relational.core.query.Criteria.where;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
+
+import com.luiz.libraryapi.reactive.model.entity.Book;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RequiredArgsConstructor
+class BookRepositoryImpl implements BookRepositoryCustom {
+
+	private final R2dbcEntityTemplate template;
+
+	@Override
+	public Flux<Book> findByFilter( Book filter, Pageable pageable ) {
+		return template.select(Book.class).matching(Query.query(criteria(filter)).with(pageable)).all();
+	}
+
+	@Override
+	public Mono<Long> countByFilter( Book filter ) {
+		return template.select(Book.class).matching(Query.query(criteria(filter))).count();
+	}
+
+	private static Criteria criteria( Book filter ) {
+		Criteria criteria = Criteria.empty();
+		criteria = containing(criteria, "title", filter.getTitle());
+		criteria = containing(criteria, "author", filter.getAuthor());
+		return containing(criteria, "isbn", filter.getIsbn());
+	}
+
+	private static Criteria containing( Criteria criteria, String column, String value ) {
+		if (value == null) {
+			return criteria;
+		}
+		return criteria.and(where(column).like("%" + value + "%").ignoreCase(true));
+	}
+}
@@ -0,0 +1,30 @@
+package com.luiz.libraryapi.reactive.model.repository;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.repository.query.Param;
+
+import com.luiz.libraryapi.reactive.model.entity.Loan;
+
+import reactor.core.publisher.Mono;
+
+public interface LoanRepository extends R2dbcRepository<Loan, Long>, LoanRepositoryCustom {
+
+    @Query( " select case when count(l.id) > 0 then true else false end from loan l " +
+            " where l.id_book = :bookId and ( l.returned is null or l.returned = false ) " )
+    Mono<Boolean> existsByBookAndNotReturned( @Param("bookId") Long bookId );
+
+    @Query( " select count(l.id) from loan l join book b on b.id = l.id_book " +
+            " where b.isbn = :isbn or l.customer = :customer " )
+    Mono<Long> countByBookIsbnOrCustomer( @Param("isbn") String isbn, @Param("customer") String customer );
+
+    /**
+     * Devolucao condicional num so UPDATE: 0 linhas quer dizer que o emprestimo
+     * nao existe ou ja foi devolvido.
+     */
+    @Modifying
+    @Query( " update loan set returned = true, version = version + 1 " +
+            " where id = :id and ( returned is null or returned = false ) " )
+    Mono<Integer> markReturned( @Param("id") Long id );
+}
@@ -0,0 +1,17 @@
+package com.luiz.libraryapi.reactive.model.repository;
+
+import org.springframework.data.domain.Pageable;
+
+import com.luiz.libraryapi.reactive.model.entity.Loan;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Busca paginada por isbn do livro ou cliente. Fica fora do @Query porque o
+ * R2DBC nao aplica o Sort do Pageable em query declarada, e a versao servlet
+ * ordena pelo sort recebido.
+ */
+public interface LoanRepositoryCustom {
+
+	Flux<Loan> findByBookIsbnOrCustomer( String isbn, String customer, Pageable pageable );
+}
@@ -0,0 +1,67 @@
+package com.luiz.libraryapi.reactive.model.repository;
+
+import java.util.Collections;
+import java.util.StringJoiner;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PropertyReferenceException;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
+import org.springframework.data.relational.core.mapping.RelationalPersistentProperty;
+import org.springframework.data.util.ClassTypeInformation;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+
+import com.luiz.libraryapi.reactive.model.entity.Loan;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+
+@RequiredArgsConstructor
+class LoanRepositoryImpl implements LoanRepositoryCustom {
+
+	private final R2dbcEntityTemplate template;
+
+	@Override
+	public Flux<Loan> findByBookIsbnOrCustomer( String isbn, String customer, Pageable pageable ) {
+		String sql = " select l.* from loan l join book b on b.id = l.id_book " +
+				" where b.isbn = :isbn or l.customer = :customer " + orderBy(pageable.getSort()) +
+				" limit :limit offset :offset ";
+		GenericExecuteSpec spec = template.getDatabaseClient().sql(sql);
+		spec = bind(spec, "isbn", isbn);
+		spec = bind(spec, "customer", customer);
+		return spec.bind("limit", pageable.getPageSize())
+				.bind("offset", pageable.getOffset())
+				.map((row, metadata) -> template.getConverter().read(Loan.class, row, metadata))
+				.all();
+	}
+
+	/**
+	 * So aceita propriedades do Loan, traduzidas para a coluna, e termina
+	 * sempre no id para o offset nao repetir nem pular linhas empatadas. Uma
+	 * propriedade desconhecida falha como no Spring Data JPA.
+	 */
+	private String orderBy( Sort sort ) {
+		RelationalPersistentEntity<?> entity = template.getConverter().getMappingContext()
+				.getRequiredPersistentEntity(Loan.class);
+		StringJoiner columns = new StringJoiner(", ", " order by ", "");
+		boolean byId = false;
+		for (Sort.Order order : sort) {
+			RelationalPersistentProperty property = entity.getPersistentProperty(order.getProperty());
+			if (property == null) {
+				throw new PropertyReferenceException(order.getProperty(), ClassTypeInformation.from(Loan.class),
+						Collections.emptyList());
+			}
+			byId |= property.isIdProperty();
+			columns.add("l." + property.getColumnName().getReference() + " " + order.getDirection().name());
+		}
+		if (!byId) {
+			columns.add("l.id");
+		}
+		return columns.toString();
+	}
+
+	private static GenericExecuteSpec bind( GenericExecuteSpec spec, String name, String value ) {
+		return value == null ? spec.bindNull(name, String.class) : spec.bind(name, value);
+	}
+}
@@ -0,0 +1,32 @@
+package com.luiz.libraryapi.reactive.service;
+
+import java.util.Collection;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import com.luiz.libraryapi.reactive.model.entity.Book;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Contrapartida reativa do BookService da versao servlet. Os metodos que la
+ * devolvem Optional aqui completam vazios.
+ */
+public interface BookService {
+
+	Mono<Book> save(Book book);
+
+	Mono<Book> getById(Long id);
+
+	Flux<Book> getByIds(Collection<Long> ids);
+
+	Mono<Void> delete(Book book);
+
+	Mono<Book> update(Book book);
+
+	Mono<Page<Book>> find(Book filter, Pageable pageRequest);
+
+	Mono<Book> getBookByIsbn(String isbn);
+}
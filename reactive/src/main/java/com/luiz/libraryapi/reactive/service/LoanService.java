@@ -0,0 +1,27 @@
+package com.luiz.libraryapi.reactive.service;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import com.luiz.libraryapi.reactive.api.dto.LoanFilterDTO;
+import com.luiz.libraryapi.reactive.model.entity.Loan;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Contrapartida reativa do LoanService da versao servlet.
+ */
+public interface LoanService {
+
+	enum ReturnOutcome { RETURNED, NOT_FOUND, ALREADY_RETURNED }
+
+	Mono<Loan> save(Loan loan);
+
+	Mono<Loan> getById(Long id);
+
+	Mono<ReturnOutcome> returnLoan(Long id);
+
+	Mono<Loan> update(Loan loan);
+
+	Mono<Page<Loan>> find(LoanFilterDTO filterDTO, Pageable pageable);
+}
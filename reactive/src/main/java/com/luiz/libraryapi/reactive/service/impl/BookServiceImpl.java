@@ -0,0 +1,81 @@
+package com.luiz.libraryapi.reactive.service.impl;
+
+import java.util.Collection;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.luiz.libraryapi.reactive.exception.BusinessException;
+import com.luiz.libraryapi.reactive.model.entity.Book;
+import com.luiz.libraryapi.reactive.model.repository.BookRepository;
+import com.luiz.libraryapi.reactive.service.BookService;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+@RequiredArgsConstructor
+public class BookServiceImpl implements BookService {
+
+	private final BookRepository repository;
+
+	/**
+	 * O existsByIsbn cobre o caso comum; o indice unico ux_book_isbn cobre a
+	 * corrida entre dois cadastros do mesmo isbn.
+	 */
+	@Override
+	public Mono<Book> save(Book book) {
+		return repository.existsByIsbn(book.getIsbn())
+				.flatMap(exists -> exists
+						? Mono.<Book>error(new BusinessException("Isbn ja cadastrado."))
+						: repository.save(book))
+				.onErrorMap(DuplicateKeys::matches, e -> new BusinessException("Isbn ja cadastrado."));
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public Mono<Book> getById(Long id) {
+		return repository.findById(id);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public Flux<Book> getByIds(Collection<Long> ids) {
+		return ids.isEmpty() ? Flux.empty() : repository.findAllById(ids);
+	}
+
+	@Override
+	public Mono<Void> delete(Book book) {
+		if (book == null || book.getId() == null) {
+			return Mono.error(new IllegalArgumentException("Book id cant be null."));
+		}
+		return repository.delete(book);
+	}
+
+	@Override
+	public Mono<Book> update(Book book) {
+		if (book == null || book.getId() == null) {
+			return Mono.error(new IllegalArgumentException("Book id cant be null."));
+		}
+		return repository.save(book);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public Mono<Page<Book>> find(Book filter, Pageable pageRequest) {
+		return repository.findByFilter(filter, pageRequest)
+				.collectList()
+				.flatMap(content -> repository.countByFilter(filter)
+						.map(total -> new PageImpl<>(content, pageRequest, total)));
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public Mono<Book> getBookByIsbn(String isbn) {
+		return repository.findByIsbn(isbn);
+	}
+}
@@ -0,0 +1,23 @@
+package com.luiz.libraryapi.reactive.service.impl;
+
+import org.springframework.dao.DataIntegrityViolationException;
+
+import io.r2dbc.spi.R2dbcException;
+
+/**
+ * O Spring R2DBC traduz toda violacao de integridade para
+ * DataIntegrityViolationException, sem o DuplicateKeyException do JDBC. O
+ * SQLState 23505 separa o indice unico de uma FK ou not null.
+ */
+final class DuplicateKeys {
+
+	private static final String UNIQUE_VIOLATION = "23505";
+
+	private DuplicateKeys() {
+	}
+
+	static boolean matches(Throwable e) {
+		return e instanceof DataIntegrityViolationException && e.getCause() instanceof R2dbcException
+				&& UNIQUE_VIOLATION.equals(((R2dbcException) e.getCause()).getSqlState());
+	}
+}
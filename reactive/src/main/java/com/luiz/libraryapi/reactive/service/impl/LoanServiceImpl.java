@@ -0,0 +1,68 @@
+package com.luiz.libraryapi.reactive.service.impl;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.luiz.libraryapi.reactive.api.dto.LoanFilterDTO;
+import com.luiz.libraryapi.reactive.exception.BusinessException;
+import com.luiz.libraryapi.reactive.model.entity.Loan;
+import com.luiz.libraryapi.reactive.model.repository.LoanRepository;
+import com.luiz.libraryapi.reactive.service.LoanService;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+
+@Service
+@RequiredArgsConstructor
+public class LoanServiceImpl implements LoanService {
+
+	private final LoanRepository repository;
+
+	/**
+	 * O existsByBookAndNotReturned cobre o caso comum; o indice unico
+	 * ux_loan_open_book cobre a corrida entre dois emprestimos do mesmo livro.
+	 */
+	@Override
+	@Transactional
+	public Mono<Loan> save(Loan loan) {
+		return repository.existsByBookAndNotReturned(loan.getBookId())
+				.flatMap(loaned -> loaned
+						? Mono.<Loan>error(new BusinessException("Book already loaned"))
+						: repository.save(loan))
+				.onErrorMap(DuplicateKeys::matches, e -> new BusinessException("Book already loaned"));
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public Mono<Loan> getById(Long id) {
+		return repository.findById(id);
+	}
+
+	@Override
+	@Transactional
+	public Mono<ReturnOutcome> returnLoan(Long id) {
+		return repository.markReturned(id)
+				.flatMap(updated -> updated > 0
+						? Mono.just(ReturnOutcome.RETURNED)
+						: repository.existsById(id)
+								.map(exists -> exists ? ReturnOutcome.ALREADY_RETURNED : ReturnOutcome.NOT_FOUND));
+	}
+
+	@Override
+	public Mono<Loan> update(Loan loan) {
+		return repository.save(loan)
+				.onErrorMap(DuplicateKeys::matches, e -> new BusinessException("Book already loaned"));
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public Mono<Page<Loan>> find(LoanFilterDTO filterDTO, Pageable pageable) {
+		return repository.findByBookIsbnOrCustomer(filterDTO.getIsbn(), filterDTO.getCustomer(), pageable)
+				.collectList()
+				.flatMap(content -> repository.countByBookIsbnOrCustomer(filterDTO.getIsbn(), filterDTO.getCustomer())
+						.map(total -> new PageImpl<>(content, pageable, total)));
+	}
+}
@@ -0,0 +1,39 @@
+-- Mesmas tabelas de db/migration/common (V1 e V4) da versao servlet. O
+-- Spring Data R2DBC so le ids gerados pelo banco, entao o id vem de um
+-- default na sequencia em vez do pooled optimizer do Hibernate.
+create sequence if not exists book_seq start with 1;
+create sequence if not exists loan_seq start with 1;
+
+create table if not exists book (
+    id bigint default next value for book_seq not null,
+    title varchar(255),
+    author varchar(255),
+    isbn varchar(255),
+    version bigint default 0 not null,
+    primary key (id)
+);
+
+create table if not exists loan (
+    id bigint default next value for loan_seq not null,
+    customer varchar(100),
+    customer_email varchar(255),
+    id_book bigint,
+    loan_date date,
+    returned boolean,
+    version bigint default 0 not null,
+    open_book bigint as (case when returned is null or returned = false then id_book end),
+    primary key (id)
+);
+
+create unique index if not exists ux_book_isbn on book (isbn);
+
+alter table loan add constraint if not exists fk_loan_book foreign key (id_book) references book (id);
+
+create index if not exists ix_loan_book_returned on loan (id_book, returned);
+
+-- Um so emprestimo em aberto por livro, mesmo com dois saves concorrentes.
+-- O H2 nao tem indice parcial, entao o indice unico fica na open_book, que
+-- so tem o id_book enquanto o emprestimo nao foi devolvido.
+create unique index if not exists ux_loan_open_book on loan (open_book);
+
+create index if not exists ix_loan_customer on loan (customer);
@@ -0,0 +1,187 @@
+package com.luiz.libraryapi.reactive.bookService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PropertyReferenceException;
+
+import com.luiz.libraryapi.reactive.api.dto.LoanFilterDTO;
+import com.luiz.libraryapi.reactive.exception.BusinessException;
+import com.luiz.libraryapi.reactive.model.entity.Book;
+import com.luiz.libraryapi.reactive.model.entity.Loan;
+import com.luiz.libraryapi.reactive.model.repository.BookRepository;
+import com.luiz.libraryapi.reactive.model.repository.LoanRepository;
+import com.luiz.libraryapi.reactive.service.BookService;
+import com.luiz.libraryapi.reactive.service.LoanService;
+import com.luiz.libraryapi.reactive.service.LoanService.ReturnOutcome;
+import com.luiz.libraryapi.reactive.service.impl.BookServiceImpl;
+import com.luiz.libraryapi.reactive.service.impl.LoanServiceImpl;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+/**
+ * Roda contra o H2 em memoria via R2DBC, com o schema.sql do modulo.
+ */
+@DataR2dbcTest(properties = "spring.r2dbc.url=r2dbc:h2:mem:///loanservicetest?options=DB_CLOSE_DELAY=-1")
+@Import({ BookServiceImpl.class, LoanServiceImpl.class })
+public class LoanServiceTest {
+
+	@Autowired
+	BookService bookService;
+
+	@Autowired
+	LoanService service;
+
+	@SpyBean
+	LoanRepository repository;
+
+	@SpyBean
+	BookRepository bookRepository;
+
+	@Test
+	@DisplayName("Deve salvar um emprestimo e recusar outro do mesmo livro enquanto nao for devolvido")
+	public void saveLoanTest() {
+		Book book = bookService.save(Book.builder().title("As aventuras").author("Fulano").isbn("s-1").build()).block();
+
+		StepVerifier.create(service.save(newLoan(book)))
+				.assertNext(loan -> assertThat(loan.getId()).isNotNull())
+				.verifyComplete();
+
+		StepVerifier.create(service.save(newLoan(book)))
+				.expectErrorSatisfies(e -> assertThat(e).isInstanceOf(BusinessException.class)
+						.hasMessage("Book already loaned"))
+				.verify();
+	}
+
+	@Test
+	@DisplayName("Deve aceitar um so emprestimo quando varios do mesmo livro chegam ao mesmo tempo")
+	public void concurrentSaveLoanTest() {
+		Book book = bookService.save(Book.builder().title("As aventuras").author("Fulano").isbn("c-1").build()).block();
+		// todos passam pela checagem antes de qualquer insert, como na corrida
+		doReturn(Mono.just(false)).when(repository).existsByBookAndNotReturned(anyLong());
+		List<Mono<Boolean>> saves = IntStream.range(0, 16)
+				.mapToObj(i -> service.save(newLoan(book))
+						.map(loan -> true)
+						.onErrorResume(BusinessException.class, e -> Mono.just(false))
+						.subscribeOn(Schedulers.boundedElastic()))
+				.collect(Collectors.toList());
+
+		StepVerifier.create(Flux.merge(saves).filter(saved -> saved).count())
+				.expectNext(1l)
+				.verifyComplete();
+		StepVerifier.create(service.find(LoanFilterDTO.builder().isbn("c-1").build(), PageRequest.of(0, 20)))
+				.assertNext(page -> assertThat(page.getTotalElements()).isEqualTo(1))
+				.verifyComplete();
+	}
+
+	@Test
+	@DisplayName("Deve devolver um emprestimo so uma vez e informar quando ele nao existir")
+	public void returnLoanTest() {
+		Book book = bookService.save(Book.builder().title("As aventuras").author("Fulano").isbn("r-1").build()).block();
+		Loan loan = service.save(newLoan(book)).block();
+
+		StepVerifier.create(service.returnLoan(loan.getId())).expectNext(ReturnOutcome.RETURNED).verifyComplete();
+		StepVerifier.create(service.returnLoan(loan.getId())).expectNext(ReturnOutcome.ALREADY_RETURNED)
+				.verifyComplete();
+		StepVerifier.create(service.returnLoan(-1l)).expectNext(ReturnOutcome.NOT_FOUND).verifyComplete();
+
+		StepVerifier.create(service.save(newLoan(book)))
+				.assertNext(again -> assertThat(again.getId()).isNotEqualTo(loan.getId()))
+				.verifyComplete();
+	}
+
+	@Test
+	@DisplayName("Deve filtrar emprestimos por isbn ou cliente e livros por titulo, paginados")
+	public void findTest() {
+		Book book = bookService.save(Book.builder().title("Livro Azul").author("Fulano").isbn("f-1").build()).block();
+		bookService.save(Book.builder().title("Outro").author("Fulano").isbn("f-2").build()).block();
+		service.save(newLoan(book)).block();
+
+		StepVerifier.create(service.find(LoanFilterDTO.builder().isbn("f-1").build(), PageRequest.of(0, 10)))
+				.assertNext(page -> {
+					assertThat(page.getTotalElements()).isEqualTo(1);
+					assertThat(page.getContent()).extracting(Loan::getBookId).containsExactly(book.getId());
+				})
+				.verifyComplete();
+
+		StepVerifier.create(bookService.find(Book.builder().title("azul").build(), PageRequest.of(0, 10)))
+				.assertNext(page -> {
+					assertThat(page.getTotalElements()).isEqualTo(1);
+					assertThat(page.getContent()).extracting(Book::getIsbn).containsExactly("f-1");
+				})
+				.verifyComplete();
+	}
+
+	@Test
+	@DisplayName("Deve ordenar os emprestimos pelo sort do Pageable e recusar propriedade desconhecida")
+	public void findSortedTest() {
+		Book book = bookService.save(Book.builder().title("Ordenado").author("Fulano").isbn("o-1").build()).block();
+		Book other = bookService.save(Book.builder().title("Ordenado").author("Fulano").isbn("o-2").build()).block();
+		Loan first = newLoan(book);
+		first.setCustomer("Ana");
+		Loan second = newLoan(other);
+		second.setCustomer("Zeca");
+		service.save(first).block();
+		service.save(second).block();
+		LoanFilterDTO filter = LoanFilterDTO.builder().isbn("o-1").customer("Zeca").build();
+
+		StepVerifier.create(service.find(filter, PageRequest.of(0, 10, Sort.by("customer").descending())))
+				.assertNext(page -> assertThat(page.getContent()).extracting(Loan::getCustomer)
+						.containsExactly("Zeca", "Ana"))
+				.verifyComplete();
+		StepVerifier.create(service.find(filter, PageRequest.of(0, 1, Sort.by("customer"))))
+				.assertNext(page -> {
+					assertThat(page.getTotalElements()).isEqualTo(2);
+					assertThat(page.getContent()).extracting(Loan::getCustomer).containsExactly("Ana");
+				})
+				.verifyComplete();
+
+		Throwable exception = catchThrowable(() -> service.find(filter, PageRequest.of(0, 10, Sort.by("title"))).block());
+		assertThat(exception).isInstanceOf(PropertyReferenceException.class);
+	}
+
+	@Test
+	@DisplayName("Deve recusar isbn ja cadastrado")
+	public void duplicatedIsbnTest() {
+		bookService.save(Book.builder().title("As aventuras").author("Fulano").isbn("d-1").build()).block();
+
+		StepVerifier.create(bookService.save(Book.builder().title("Outro").author("Ciclano").isbn("d-1").build()))
+				.expectErrorMessage("Isbn ja cadastrado.")
+				.verify();
+	}
+
+	@Test
+	@DisplayName("Deve recusar isbn ja cadastrado por um cadastro concorrente")
+	public void concurrentDuplicatedIsbnTest() {
+		bookService.save(Book.builder().title("As aventuras").author("Fulano").isbn("d-2").build()).block();
+		doReturn(Mono.just(false)).when(bookRepository).existsByIsbn(anyString());
+
+		StepVerifier.create(bookService.save(Book.builder().title("Outro").author("Ciclano").isbn("d-2").build()))
+				.expectErrorMessage("Isbn ja cadastrado.")
+				.verify();
+	}
+
+	private Loan newLoan(Book book) {
+		return Loan.builder().bookId(book.getId()).customer("Fulano").customerEmail("fulano@email.com")
+				.loanDate(LocalDate.now()).build();
+	}
+}
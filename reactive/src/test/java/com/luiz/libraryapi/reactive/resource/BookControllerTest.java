@@ -0,0 +1,110 @@
+package com.luiz.libraryapi.reactive.resource;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.luiz.libraryapi.reactive.api.dto.BookDTO;
+import com.luiz.libraryapi.reactive.api.resouce.BookController;
+import com.luiz.libraryapi.reactive.exception.BusinessException;
+import com.luiz.libraryapi.reactive.model.entity.Book;
+import com.luiz.libraryapi.reactive.service.BookService;
+
+import reactor.core.publisher.Mono;
+
+@WebFluxTest(controllers = BookController.class)
+public class BookControllerTest {
+
+	static final String BOOK_API = "/api/books";
+
+	@Autowired
+	WebTestClient client;
+
+	@MockBean
+	BookService service;
+
+	@Test
+	@DisplayName("Deve criar um livro com sucesso")
+	public void createBookTest() {
+		Book saved = Book.builder().id(10l).title("As aventuras").author("Artur").isbn("001").build();
+		BDDMockito.given(service.save(Mockito.any(Book.class))).willReturn(Mono.just(saved));
+
+		client.post().uri(BOOK_API)
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue(BookDTO.builder().title("As aventuras").author("Artur").isbn("001").build())
+				.exchange()
+				.expectStatus().isCreated()
+				.expectBody()
+				.jsonPath("id").isEqualTo(10)
+				.jsonPath("title").isEqualTo("As aventuras")
+				.jsonPath("isbn").isEqualTo("001");
+	}
+
+	@Test
+	@DisplayName("Deve lancar erro de validacao quando nao houver dados suficientes para criacao do livro")
+	public void createInvalidBookTest() {
+		client.post().uri(BOOK_API)
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue(new BookDTO())
+				.exchange()
+				.expectStatus().isBadRequest()
+				.expectBody()
+				.jsonPath("errors.length()").isEqualTo(3);
+	}
+
+	@Test
+	@DisplayName("Deve lancar erro ao tentar cadastrar um livro com isbn ja utilizado")
+	public void createBookWithDuplicatedIsbn() {
+		BDDMockito.given(service.save(Mockito.any(Book.class)))
+				.willReturn(Mono.error(new BusinessException("Isbn ja cadastrado.")));
+
+		client.post().uri(BOOK_API)
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue(BookDTO.builder().title("As aventuras").author("Artur").isbn("001").build())
+				.exchange()
+				.expectStatus().isBadRequest()
+				.expectBody()
+				.jsonPath("errors[0]").isEqualTo("Isbn ja cadastrado.");
+	}
+
+	@Test
+	@DisplayName("Deve retornar resource not found quando o livro procurado nao existir")
+	public void bookNotFoundTest() {
+		BDDMockito.given(service.getById(1l)).willReturn(Mono.empty());
+
+		client.get().uri(BOOK_API + "/1")
+				.exchange()
+				.expectStatus().isNotFound();
+	}
+
+	@Test
+	@DisplayName("Deve filtrar livros paginados pelos parametros da query")
+	public void findBooksTest() {
+		Book book = Book.builder().id(1l).title("As aventuras").author("Artur").isbn("001").build();
+		BDDMockito.given(service.find(Mockito.any(Book.class), Mockito.any(Pageable.class)))
+				.willReturn(Mono.just(new PageImpl<>(Arrays.asList(book), PageRequest.of(0, 100), 1)));
+
+		client.get().uri(BOOK_API + "?title=aventuras&page=0&size=100")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("content.length()").isEqualTo(1)
+				.jsonPath("totalElements").isEqualTo(1)
+				.jsonPath("pageable.pageSize").isEqualTo(100)
+				.jsonPath("pageable.pageNumber").isEqualTo(0);
+
+		Mockito.verify(service).find(Mockito.argThat(filter -> "aventuras".equals(filter.getTitle())),
+				Mockito.eq(PageRequest.of(0, 100)));
+	}
+}
@@ -0,0 +1,122 @@
+package com.luiz.libraryapi.reactive.resource;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.luiz.libraryapi.reactive.api.dto.LoanDTO;
+import com.luiz.libraryapi.reactive.api.dto.ReturnedLoanDTO;
+import com.luiz.libraryapi.reactive.api.resouce.LoanController;
+import com.luiz.libraryapi.reactive.exception.BusinessException;
+import com.luiz.libraryapi.reactive.model.entity.Book;
+import com.luiz.libraryapi.reactive.model.entity.Loan;
+import com.luiz.libraryapi.reactive.service.BookService;
+import com.luiz.libraryapi.reactive.service.LoanService;
+
+import reactor.core.publisher.Mono;
+
+@WebFluxTest(controllers = LoanController.class)
+public class LoanControllerTest {
+
+	static final String LOAN_API = "/api/loans";
+
+	@Autowired
+	WebTestClient client;
+
+	@MockBean
+	BookService bookService;
+
+	@MockBean
+	LoanService loanService;
+
+	@Test
+	@DisplayName("Deve realizar um emprestimo")
+	public void createLoanTest() {
+		Book book = Book.builder().id(1l).isbn("123").build();
+		BDDMockito.given(bookService.getBookByIsbn("123")).willReturn(Mono.just(book));
+		BDDMockito.given(loanService.save(Mockito.any(Loan.class))).willReturn(Mono.just(
+				Loan.builder().id(1l).customer("Fulano").bookId(1l).loanDate(LocalDate.now()).build()));
+
+		client.post().uri(LOAN_API)
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue(LoanDTO.builder().isbn("123").email("customer@email.com").customer("Fulano").build())
+				.exchange()
+				.expectStatus().isCreated()
+				.expectBody(String.class).isEqualTo("1");
+
+		Mockito.verify(loanService).save(Mockito.argThat(loan -> loan.getBookId() == 1l
+				&& "Fulano".equals(loan.getCustomer()) && loan.getCustomerEmail() == null));
+	}
+
+	@Test
+	@DisplayName("Deve retornar erro ao tentar fazer emprestimo de um livro inexistente")
+	public void invalidIsbnCreateLoanTest() {
+		BDDMockito.given(bookService.getBookByIsbn("123")).willReturn(Mono.empty());
+
+		client.post().uri(LOAN_API)
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue(LoanDTO.builder().isbn("123").customer("Fulano").build())
+				.exchange()
+				.expectStatus().isBadRequest()
+				.expectBody()
+				.jsonPath("errors[0]").isEqualTo("Book not found for passed isbn");
+	}
+
+	@Test
+	@DisplayName("Deve retornar erro ao tentar fazer emprestimo de um livro emprestado")
+	public void loanedBookErrorOnCreateLoanTest() {
+		BDDMockito.given(bookService.getBookByIsbn("123")).willReturn(Mono.just(Book.builder().id(1l).build()));
+		BDDMockito.given(loanService.save(Mockito.any(Loan.class)))
+				.willReturn(Mono.error(new BusinessException("Book already loaned")));
+
+		client.post().uri(LOAN_API)
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue(LoanDTO.builder().isbn("123").customer("Fulano").build())
+				.exchange()
+				.expectStatus().isBadRequest()
+				.expectBody()
+				.jsonPath("errors[0]").isEqualTo("Book already loaned");
+	}
+
+	@Test
+	@DisplayName("Deve retornar um livro")
+	public void returnBookTest() {
+		BDDMockito.given(loanService.returnLoan(1l)).willReturn(Mono.just(LoanService.ReturnOutcome.RETURNED));
+
+		client.patch().uri(LOAN_API + "/1")
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue(ReturnedLoanDTO.builder().returned(true).build())
+				.exchange()
+				.expectStatus().isOk();
+	}
+
+	@Test
+	@DisplayName("Deve retornar 409 ao devolver um emprestimo ja devolvido e 404 quando ele nao existir")
+	public void returnBookConflictAndNotFoundTest() {
+		BDDMockito.given(loanService.returnLoan(1l))
+				.willReturn(Mono.just(LoanService.ReturnOutcome.ALREADY_RETURNED));
+		BDDMockito.given(loanService.returnLoan(2l)).willReturn(Mono.just(LoanService.ReturnOutcome.NOT_FOUND));
+
+		client.patch().uri(LOAN_API + "/1")
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue(ReturnedLoanDTO.builder().returned(true).build())
+				.exchange()
+				.expectStatus().isEqualTo(409)
+				.expectBody()
+				.jsonPath("errors[0]").isEqualTo("Loan already returned");
+
+		client.patch().uri(LOAN_API + "/2")
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue(ReturnedLoanDTO.builder().returned(true).build())
+				.exchange()
+				.expectStatus().isNotFound();
+	}
+}
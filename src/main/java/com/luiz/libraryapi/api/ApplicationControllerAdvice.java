@@ -1,6 +1,7 @@
 package com.luiz.libraryapi.api;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -28,6 +29,13 @@ public class ApplicationControllerAdvice {
 	        return new ApiErros(ex);
 	    }
 
+	    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+	    public ResponseEntity handleOptimisticLockingFailure( ObjectOptimisticLockingFailureException ex ){
+	        ResponseStatusException conflict = new ResponseStatusException(HttpStatus.CONFLICT,
+	                "Resource was changed by another request, reload it and try again");
+	        return handleResponseStatusException(conflict);
+	    }
+
 	    @ExceptionHandler(ResponseStatusException.class)
 	    public ResponseEntity handleResponseStatusException( ResponseStatusException ex ){
 	        return new ResponseEntity(new ApiErros(ex), ex.getStatus());
@@ -0,0 +1,16 @@
+package com.luiz.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookDeleteResultDTO {
+
+	private long books;
+	private long loans;
+}
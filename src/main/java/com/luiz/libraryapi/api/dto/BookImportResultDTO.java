@@ -0,0 +1,34 @@
+package com.luiz.libraryapi.api.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookImportResultDTO {
+
+	public static final int MAX_ERRORS = 100;
+
+	private long read;
+	private long imported;
+	private long duplicated;
+	private long invalid;
+	@Builder.Default
+	private List<String> errors = new ArrayList<>();
+	private boolean errorsTruncated;
+
+	public void addError(long line, String message) {
+		if (errors.size() < MAX_ERRORS) {
+			errors.add("line " + line + ": " + message);
+		} else {
+			errorsTruncated = true;
+		}
+	}
+}
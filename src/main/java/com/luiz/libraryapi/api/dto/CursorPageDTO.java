@@ -0,0 +1,75 @@
+package com.luiz.libraryapi.api.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.luiz.libraryapi.exception.BusinessException;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Pagina do modo cursor (keyset): em vez de total e numero de pagina,
+ * devolve o token opaco a ser enviado em {@code ?after=} para a proxima pagina.
+ * {@code next} e nulo quando nao ha mais registros.
+ *
+ * A busca e {@code id > cursor order by id}: quem ja estava gravado quando a
+ * paginacao comecou sai uma vez so. O id nao segue a ordem de commit, e com o
+ * sequence pooled instancias diferentes sacam blocos diferentes; um registro
+ * criado durante a paginacao so cai com certeza depois do cursor com um unico
+ * alocador (uma instancia, como ja assume o ActiveLoanIndex) e gravado depois
+ * da pagina anterior. Fora disso pode ficar antes do cursor e nao aparecer.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDTO<T> {
+
+	public static final int MAX_SIZE = 1000;
+
+	private List<T> content;
+	private int size;
+	private String next;
+
+	/**
+	 * Monta a pagina a partir de ate {@code size + 1} linhas ordenadas por id;
+	 * a linha extra so indica que existe uma proxima pagina.
+	 */
+	public static <E, T> CursorPageDTO<T> of(List<E> rows, int size, Function<E, Long> idOf, Function<E, T> mapper) {
+		boolean hasNext = rows.size() > size;
+		List<E> page = hasNext ? rows.subList(0, size) : rows;
+		String next = hasNext ? encode(idOf.apply(page.get(page.size() - 1))) : null;
+		List<T> content = page.stream().map(mapper).collect(Collectors.toList());
+		return new CursorPageDTO<T>(content, size, next);
+	}
+
+	public static int limit(int size) {
+		return Math.max(1, Math.min(size, MAX_SIZE));
+	}
+
+	public static String encode(Long id) {
+		return Base64.getUrlEncoder().withoutPadding()
+				.encodeToString(("id:" + id).getBytes(StandardCharsets.UTF_8));
+	}
+
+	public static Long decode(String cursor) {
+		if (cursor == null || cursor.isBlank()) {
+			return 0L;
+		}
+		try {
+			String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			if (!value.startsWith("id:")) {
+				throw new BusinessException("Invalid cursor");
+			}
+			return Long.valueOf(value.substring(3));
+		} catch (IllegalArgumentException e) {
+			throw new BusinessException("Invalid cursor");
+		}
+	}
+}
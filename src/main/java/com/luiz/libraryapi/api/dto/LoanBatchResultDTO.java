@@ -0,0 +1,28 @@
+package com.luiz.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanBatchResultDTO {
+
+	public static final int MAX_ITEMS = 1000;
+
+	private String isbn;
+	private Long id;
+	private boolean success;
+	private String error;
+
+	public static LoanBatchResultDTO created(String isbn, Long id) {
+		return LoanBatchResultDTO.builder().isbn(isbn).id(id).success(true).build();
+	}
+
+	public static LoanBatchResultDTO failed(String isbn, String error) {
+		return LoanBatchResultDTO.builder().isbn(isbn).success(false).error(error).build();
+	}
+}
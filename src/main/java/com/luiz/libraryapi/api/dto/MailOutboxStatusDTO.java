@@ -0,0 +1,22 @@
+package com.luiz.libraryapi.api.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MailOutboxStatusDTO {
+
+	private long pending;
+	private long retrying;
+	private long failed;
+	private long sent;
+	private LocalDateTime oldestPendingAt;
+	private Long oldestPendingAgeSeconds;
+}
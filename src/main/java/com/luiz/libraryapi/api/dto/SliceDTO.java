@@ -0,0 +1,44 @@
+package com.luiz.libraryapi.api.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.data.domain.Slice;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Pagina sem COUNT ({@code ?count=none}) ou com total aproximado
+ * ({@code ?count=approximate}). Em {@code none}, {@code totalElements} e nulo.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SliceDTO<T> {
+
+	public static final String COUNT_NONE = "none";
+	public static final String COUNT_APPROXIMATE = "approximate";
+
+	private List<T> content;
+	private int page;
+	private int size;
+	private boolean hasNext;
+	private Long totalElements;
+	private boolean totalApproximate;
+
+	public static <E, T> SliceDTO<T> of(Slice<E> slice, Function<E, T> mapper) {
+		return new SliceDTO<T>(slice.map(mapper).getContent(), slice.getNumber(), slice.getSize(),
+				slice.hasNext(), null, false);
+	}
+
+	public static <E, T> SliceDTO<T> of(Slice<E> slice, Function<E, T> mapper, long approximateTotal) {
+		SliceDTO<T> dto = of(slice, mapper);
+		dto.setTotalElements(approximateTotal);
+		dto.setTotalApproximate(true);
+		return dto;
+	}
+}
@@ -0,0 +1,24 @@
+package com.luiz.libraryapi.api.mapper;
+
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+import com.luiz.libraryapi.api.dto.BookDTO;
+import com.luiz.libraryapi.model.entity.Book;
+import com.luiz.libraryapi.model.projection.BookSummary;
+
+/**
+ * Mapeamento Book <-> BookDTO gerado em tempo de compilacao pelo MapStruct,
+ * substituindo o ModelMapper (reflexivo) nos controllers.
+ */
+@Mapper
+public interface BookMapper {
+
+	BookDTO toDto(Book book);
+
+	BookDTO toDto(BookSummary summary);
+
+	@Mapping(target = "loans", ignore = true)
+	@Mapping(target = "version", ignore = true)
+	Book toEntity(BookDTO dto);
+}
@@ -0,0 +1,26 @@
+package com.luiz.libraryapi.api.mapper;
+
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+import com.luiz.libraryapi.api.dto.LoanDTO;
+import com.luiz.libraryapi.model.entity.Loan;
+import com.luiz.libraryapi.model.projection.LoanSummary;
+
+/**
+ * Mapeamento Loan -> LoanDTO, incluindo o BookDTO aninhado.
+ */
+@Mapper(uses = BookMapper.class)
+public interface LoanMapper {
+
+	@Mapping(target = "isbn", source = "book.isbn")
+	@Mapping(target = "email", source = "customerEmail")
+	LoanDTO toDto(Loan loan);
+
+	@Mapping(target = "email", source = "customerEmail")
+	@Mapping(target = "book.id", source = "bookId")
+	@Mapping(target = "book.title", source = "title")
+	@Mapping(target = "book.author", source = "author")
+	@Mapping(target = "book.isbn", source = "isbn")
+	LoanDTO toDto(LoanSummary summary);
+}
@@ -1,37 +1,59 @@
 package com.luiz.libraryapi.api.resouce;
 
+import java.io.InputStream;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import javax.validation.Valid;
 
-import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.luiz.libraryapi.api.dto.BookDTO;
+import com.luiz.libraryapi.api.dto.BookDeleteResultDTO;
+import com.luiz.libraryapi.api.dto.BookImportResultDTO;
+import com.luiz.libraryapi.api.dto.CursorPageDTO;
 import com.luiz.libraryapi.api.dto.LoanDTO;
+import com.luiz.libraryapi.api.dto.SliceDTO;
 import com.luiz.libraryapi.api.exception.ApiErros;
+import com.luiz.libraryapi.api.mapper.BookMapper;
+import com.luiz.libraryapi.api.mapper.LoanMapper;
 import com.luiz.libraryapi.exception.BusinessException;
 import com.luiz.libraryapi.model.entity.Book;
 import com.luiz.libraryapi.model.entity.Loan;
+import com.luiz.libraryapi.service.BookDeleteService;
+import com.luiz.libraryapi.service.BookDeleteService.LoanPolicy;
+import com.luiz.libraryapi.service.BookImportService;
 import com.luiz.libraryapi.service.BookService;
 import com.luiz.libraryapi.service.LoanService;
+import com.luiz.libraryapi.service.impl.TableChangeCounter;
 
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
@@ -48,9 +70,19 @@ import lombok.extern.slf4j.Slf4j;
 
 public class BookController {
 	
-	private  BookService service;
-	private  ModelMapper modelMapper;
-	private  LoanService loanService;
+	private static final int MAX_AVAILABILITY_IDS = 500;
+	private static final String TEXT_CSV = "text/csv";
+	private static final String APPLICATION_NDJSON = "application/x-ndjson";
+	private static final String APPLICATION_MERGE_PATCH_JSON = "application/merge-patch+json";
+	
+	private final BookService service;
+	private final BookMapper bookMapper;
+	private final LoanMapper loanMapper;
+	private final LoanService loanService;
+	private final BookImportService importService;
+	private final BookDeleteService deleteService;
+	private final TableChangeCounter changes;
+	private final ObjectMapper objectMapper;
 	
 	
 	/*
@@ -65,9 +97,9 @@ public class BookController {
 	
 	public BookDTO create(@RequestBody @Valid BookDTO dto) {
 		log.info("creating a book for isbn: {}", dto.getIsbn());
-		Book entity = modelMapper.map(dto, Book.class);
-		service.save(entity);
-		return modelMapper.map(entity, BookDTO.class);
+		Book entity = bookMapper.toEntity(dto);
+		entity = service.save(entity);
+		return bookMapper.toDto(entity);
 				
 				/*BookDTO.builder()
 				.author(entity.getAuthor())
@@ -76,15 +108,50 @@ public class BookController {
 				.build();*/
 	}
 	
+	@PostMapping(value = "import", consumes = { TEXT_CSV, APPLICATION_NDJSON })
+	@ApiOperation("Imports books from a CSV (title,author,isbn header) or NDJSON body, streaming it in chunks")
+	public BookImportResultDTO importBooks(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, InputStream body) {
+		log.info("importing books from a {} body", contentType);
+		if (MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.parseMediaType(TEXT_CSV))) {
+			return importService.importCsv(body);
+		}
+		return importService.importNdjson(body);
+	}
+	
+	@GetMapping("export")
+	@ApiOperation("Streams every book as NDJSON (default) or CSV")
+	public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = ExportWriter.NDJSON) String format) {
+		MediaType mediaType = ExportWriter.mediaType(format);
+		StreamingResponseBody body = out -> {
+			ExportWriter<BookDTO> writer = new ExportWriter<>(format, out, objectMapper,
+					new String[] { "id", "title", "author", "isbn" },
+					dto -> new Object[] { dto.getId(), dto.getTitle(), dto.getAuthor(), dto.getIsbn() });
+			service.forEachBook(summary -> writer.write(bookMapper.toDto(summary)));
+			writer.finish();
+		};
+		return ResponseEntity.ok().contentType(mediaType).body(body);
+	}
+	
 	@GetMapping("{id}")
 	@ApiOperation("Get a book details by id")
-	public BookDTO get (@PathVariable Long id) {
+	public BookDTO get (@PathVariable Long id, WebRequest request) {
 		log.info(" obtaining details for book id: {} ", id);
-		return service.getById(id)
-				.map( book -> modelMapper.map(book, BookDTO.class) )
-				.orElseThrow( () -> new ResponseStatusException(HttpStatus.NOT_FOUND) );
+		Book book = service.getById(id).orElseThrow( () -> new ResponseStatusException(HttpStatus.NOT_FOUND) );
+		if (ETags.checkNotModified(request, ETags.of(book))) {
+			return null;
+		}
+		return bookMapper.toDto(book);
 	
 	}
+	@GetMapping("availability")
+	@ApiOperation("Tells for each book id whether it is available (no active loan)")
+	public Map<Long, Boolean> availability (@RequestParam List<Long> ids) {
+		if (ids.size() > MAX_AVAILABILITY_IDS) {
+			throw new BusinessException("Too many ids, max is " + MAX_AVAILABILITY_IDS);
+		}
+		return loanService.getAvailability(ids);
+	}
+	
 	@DeleteMapping("{id}")
 	@ResponseStatus(HttpStatus.NO_CONTENT)
 	@ApiOperation("Deletes a book by id")
@@ -95,6 +162,35 @@ public class BookController {
 		
 	}
 	
+	@DeleteMapping
+	@ApiOperation("Deletes books by id list (ids) or by filter (title and author contain, isbn exact) in bulk; loans=reject or cascade")
+	public BookDeleteResultDTO deleteAll (@RequestParam(required = false) List<Long> ids, BookDTO dto,
+			@RequestParam(defaultValue = "reject") String loans) {
+		LoanPolicy policy = loanPolicy(loans);
+		Book filter = bookMapper.toEntity(dto);
+		boolean hasFilter = filter.getTitle() != null || filter.getAuthor() != null || filter.getIsbn() != null;
+		if (ids != null) {
+			if (hasFilter) {
+				throw new BusinessException("Use either ids or a filter, not both");
+			}
+			log.info(" deleting {} books by id with loan policy {} ", ids.size(), policy);
+			return deleteService.deleteByIds(ids, policy);
+		}
+		log.info(" deleting books matching {} with loan policy {} ", dto, policy);
+		return deleteService.deleteByFilter(filter, policy);
+	}
+	
+	private static LoanPolicy loanPolicy(String loans) {
+		switch (loans) {
+		case "reject":
+			return LoanPolicy.REJECT;
+		case "cascade":
+			return LoanPolicy.CASCADE;
+		default:
+			throw new BusinessException("Invalid loans policy: " + loans);
+		}
+	}
+	
 	  @PutMapping("{id}")
 	  @ApiOperation("Updates a book")
 	    public BookDTO update( @PathVariable Long id, @RequestBody @Valid BookDTO dto){
@@ -104,35 +200,104 @@ public class BookController {
 	            book.setAuthor(dto.getAuthor());
 	            book.setTitle(dto.getTitle());
 	            book = service.update(book);
-	            return modelMapper.map(book, BookDTO.class);
+	            return bookMapper.toDto(book);
 
 	        }).orElseThrow( () -> new ResponseStatusException(HttpStatus.NOT_FOUND) );
 	    }
 	  
-	  @GetMapping ("{id}")
+	  @GetMapping
 	  @ApiOperation("Lists books by params")
-	  public Page<BookDTO> find(BookDTO dto , Pageable pageRequest){
-		  Book filter = modelMapper.map(dto, Book.class);
+	  public Page<BookDTO> find(BookDTO dto , Pageable pageRequest, WebRequest request){
+		  if (ETags.checkNotModified(request, ETags.books(changes))) {
+			  return null;
+		  }
+		  Book filter = bookMapper.toEntity(dto);
 		  Page<Book> result = service.find(filter, pageRequest);
 		  
 		  List<BookDTO> list = result.getContent().stream()
-		  .map( entity -> modelMapper.map(entity, BookDTO.class))
+		  .map( bookMapper::toDto )
 		  .collect( Collectors.toList());
 		
 		  return new PageImpl <BookDTO> (list , pageRequest , result.getTotalElements());
 		  
 	  }
 	  
+	  @GetMapping(params = { "count", "!after" })
+	  @ApiOperation("Lists books by params without COUNT (count=none) or with a cached approximate total (count=approximate)")
+	  public SliceDTO<BookDTO> findSlice(BookDTO dto, @RequestParam String count, Pageable pageRequest,
+			  WebRequest request){
+		  if (ETags.checkNotModified(request, ETags.books(changes))) {
+			  return null;
+		  }
+		  Book filter = bookMapper.toEntity(dto);
+		  Slice<Book> result = service.findSlice(filter, pageRequest);
+		  switch (count) {
+		  case SliceDTO.COUNT_NONE:
+			  return SliceDTO.of(result, bookMapper::toDto);
+		  case SliceDTO.COUNT_APPROXIMATE:
+			  return SliceDTO.of(result, bookMapper::toDto, service.approximateCount(filter));
+		  default:
+			  throw new BusinessException("Invalid count mode: " + count);
+		  }
+	  }
+	  
+	  @GetMapping(params = "after")
+	  @ApiOperation("Lists books by params using a cursor (keyset) instead of page numbers")
+	  public CursorPageDTO<BookDTO> findAfter(BookDTO dto, @RequestParam String after,
+			  @RequestParam(defaultValue = "20") int size, WebRequest request){
+		  if (ETags.checkNotModified(request, ETags.books(changes))) {
+			  return null;
+		  }
+		  int limit = CursorPageDTO.limit(size);
+		  Book filter = bookMapper.toEntity(dto);
+		  List<Book> rows = service.findAfter(filter, CursorPageDTO.decode(after), limit + 1);
+		  return CursorPageDTO.of(rows, limit, Book::getId, bookMapper::toDto);
+	  }
+	  
 	
-	@PutMapping
-	public BookDTO put (@PathVariable Long id, BookDTO dto) {
-		return  service.getById(id).map(book -> {
-			book.setAuthor(dto.getAuthor());
-			book.setTitle(dto.getAuthor());
-			service.update(book);
-			return modelMapper.map(book, BookDTO.class);}
-		).orElseThrow( () -> new ResponseStatusException(HttpStatus.NOT_FOUND) );
-		
+	/**
+	 * JSON Merge Patch de title/author. A versao esperada vem do campo "version"
+	 * do corpo ou do If-Match (ETag do GET); sem nenhuma das duas, usa a versao
+	 * atual. Responde 204 com o novo ETag.
+	 */
+	@PatchMapping(value = "{id}", consumes = { APPLICATION_MERGE_PATCH_JSON, MediaType.APPLICATION_JSON_VALUE })
+	@ApiOperation("Changes only the given fields (title, author) of a book, checking its version")
+	public ResponseEntity<Void> patch(@PathVariable Long id, @RequestBody Map<String, Object> patch,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		Map<String, String> fields = new LinkedHashMap<>();
+		Long version = null;
+		for (Map.Entry<String, Object> entry : patch.entrySet()) {
+			if ("version".equals(entry.getKey())) {
+				if (!(entry.getValue() instanceof Number)) {
+					throw new BusinessException("version must be a number");
+				}
+				version = ((Number) entry.getValue()).longValue();
+			} else if (entry.getValue() == null || entry.getValue() instanceof String) {
+				fields.put(entry.getKey(), (String) entry.getValue());
+			} else {
+				throw new BusinessException("Field must be a string: " + entry.getKey());
+			}
+		}
+		boolean fromIfMatch = version == null && ifMatch != null && !"*".equals(ifMatch.trim());
+		if (fromIfMatch) {
+			version = ETags.bookVersion(ifMatch, id);
+			if (version == null) {
+				throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED);
+			}
+		}
+		if (version == null) {
+			version = service.getVersion(id).orElseThrow( () -> new ResponseStatusException(HttpStatus.NOT_FOUND) );
+		}
+		log.info(" patching book of id: {} at version {} ", id, version);
+		switch (service.patch(id, version, fields)) {
+		case NOT_FOUND:
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+		case VERSION_MISMATCH:
+			throw new ResponseStatusException(fromIfMatch ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT,
+					"Book was changed by another request, reload it and try again");
+		default:
+			return ResponseEntity.noContent().eTag(ETags.ofBook(id, version + 1)).build();
+		}
 	}
 	
 	
@@ -152,20 +317,48 @@ public class BookController {
 	}
 	
 	@GetMapping("{id}/loans")
-	public Page<LoanDTO> loansByBook(@PathVariable Long id, Pageable pageable){
+	public Page<LoanDTO> loansByBook(@PathVariable Long id, Pageable pageable, WebRequest request){
+		if (ETags.checkNotModified(request, ETags.loans(changes))) {
+			return null;
+		}
 		Book book = service.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
 		Page<Loan> result = loanService.getLoansByBook(book, pageable);
 		  List<LoanDTO> list = result.getContent()
 	                .stream()
-	                .map(loan -> {
-	                    Book loanBook = loan.getBook();
-	                    BookDTO bookDTO = modelMapper.map(loanBook, BookDTO.class);
-	                    LoanDTO loanDTO = modelMapper.map(loan, LoanDTO.class);
-	                    loanDTO.setBook(bookDTO);
-	                    return loanDTO;
-	                }).collect(Collectors.toList());
+	                .map(loanMapper::toDto)
+	                .collect(Collectors.toList());
 	        return new PageImpl<LoanDTO>(list, pageable, result.getTotalElements());
 		
 	}
+	
+	@GetMapping(value = "{id}/loans", params = { "count", "!after" })
+	public SliceDTO<LoanDTO> loansByBookSlice(@PathVariable Long id, @RequestParam String count, Pageable pageable,
+			WebRequest request){
+		if (ETags.checkNotModified(request, ETags.loans(changes))) {
+			return null;
+		}
+		Book book = service.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+		Slice<Loan> result = loanService.getLoansByBookSlice(book, pageable);
+		switch (count) {
+		case SliceDTO.COUNT_NONE:
+			return SliceDTO.of(result, loanMapper::toDto);
+		case SliceDTO.COUNT_APPROXIMATE:
+			return SliceDTO.of(result, loanMapper::toDto, loanService.approximateCountByBook(book));
+		default:
+			throw new BusinessException("Invalid count mode: " + count);
+		}
+	}
+	
+	@GetMapping(value = "{id}/loans", params = "after")
+	public CursorPageDTO<LoanDTO> loansByBookAfter(@PathVariable Long id, @RequestParam String after,
+			@RequestParam(defaultValue = "20") int size, WebRequest request){
+		if (ETags.checkNotModified(request, ETags.loans(changes))) {
+			return null;
+		}
+		Book book = service.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+		int limit = CursorPageDTO.limit(size);
+		List<Loan> rows = loanService.getLoansByBookAfter(book, CursorPageDTO.decode(after), limit + 1);
+		return CursorPageDTO.of(rows, limit, Loan::getId, loanMapper::toDto);
+	}
 
 }
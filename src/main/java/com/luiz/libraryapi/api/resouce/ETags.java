@@ -0,0 +1,85 @@
+package com.luiz.libraryapi.api.resouce;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import com.luiz.libraryapi.model.entity.Book;
+import com.luiz.libraryapi.model.entity.Loan;
+import com.luiz.libraryapi.service.impl.TableChangeCounter;
+
+/**
+ * ETags fortes dos recursos (id + @Version) e fracas das listagens (contador
+ * de alteracoes da tabela). Usadas com {@link #checkNotModified}, que
+ * responde 304 antes de mapear e serializar o corpo.
+ */
+final class ETags {
+
+	private ETags() {
+	}
+
+	/**
+	 * checkNotModified com Vary: Accept. A tag vale para o recurso, mas o
+	 * corpo sai em JSON, CBOR ou Smile conforme o Accept; sem o Vary um cache
+	 * poderia entregar um formato a quem pediu outro. Vale tambem para o 304.
+	 */
+	static boolean checkNotModified(WebRequest request, String etag) {
+		if (request instanceof ServletWebRequest) {
+			HttpServletResponse response = ((ServletWebRequest) request).getResponse();
+			if (response != null && !response.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT)) {
+				response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+			}
+		}
+		return request.checkNotModified(etag);
+	}
+
+	static String of(Book book) {
+		return ofBook(book.getId(), version(book.getVersion()));
+	}
+
+	/**
+	 * O LoanDTO embute o livro, entao a versao do livro tambem entra na tag.
+	 */
+	static String of(Loan loan) {
+		Long bookVersion = loan.getBook() == null ? null : loan.getBook().getVersion();
+		return "\"l" + loan.getId() + "." + version(loan.getVersion()) + "." + version(bookVersion) + "\"";
+	}
+
+	static String ofBook(Long id, long version) {
+		return "\"b" + id + "." + version + "\"";
+	}
+
+	/**
+	 * Versao contida num If-Match gerado por {@link #of(Book)} para o livro id,
+	 * ou null se o cabecalho nao for uma tag forte desse livro.
+	 */
+	static Long bookVersion(String ifMatch, Long id) {
+		String prefix = "\"b" + id + ".";
+		String tag = ifMatch.trim();
+		if (!tag.startsWith(prefix) || !tag.endsWith("\"") || tag.length() <= prefix.length() + 1) {
+			return null;
+		}
+		try {
+			return Long.valueOf(tag.substring(prefix.length(), tag.length() - 1));
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	static String books(TableChangeCounter changes) {
+		return "W/\"b" + changes.getEpoch() + "." + changes.getBooks() + "\"";
+	}
+
+	/**
+	 * Listagens de emprestimos tambem trazem os livros.
+	 */
+	static String loans(TableChangeCounter changes) {
+		return "W/\"l" + changes.getEpoch() + "." + changes.getLoans() + "." + changes.getBooks() + "\"";
+	}
+
+	private static long version(Long version) {
+		return version == null ? 0L : version;
+	}
+}
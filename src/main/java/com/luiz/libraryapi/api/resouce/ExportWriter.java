@@ -0,0 +1,102 @@
+package com.luiz.libraryapi.api.resouce;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
+import org.springframework.http.MediaType;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.luiz.libraryapi.exception.BusinessException;
+
+/**
+ * Escreve uma linha por registro em NDJSON ou CSV, descarregando o buffer para
+ * o cliente a cada {@link #FLUSH_EVERY} linhas.
+ */
+class ExportWriter<T> {
+
+	static final String NDJSON = "ndjson";
+	static final String CSV = "csv";
+	static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+	static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+	private static final int FLUSH_EVERY = 500;
+
+	private final Writer writer;
+	private final boolean csv;
+	private final ObjectMapper objectMapper;
+	private final Function<T, Object[]> csvRow;
+	private long rows;
+
+	ExportWriter(String format, OutputStream out, ObjectMapper objectMapper, String[] csvHeader,
+			Function<T, Object[]> csvRow) {
+		this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+		this.csv = CSV.equals(format);
+		this.objectMapper = objectMapper;
+		this.csvRow = csvRow;
+		if (csv) {
+			writeCsvLine(csvHeader);
+		}
+	}
+
+	static MediaType mediaType(String format) {
+		switch (format) {
+		case NDJSON:
+			return APPLICATION_NDJSON;
+		case CSV:
+			return TEXT_CSV;
+		default:
+			throw new BusinessException("Invalid export format: " + format);
+		}
+	}
+
+	void write(T row) {
+		try {
+			if (csv) {
+				writeCsvLine(csvRow.apply(row));
+			} else {
+				writer.write(objectMapper.writeValueAsString(row));
+				writer.write('\n');
+			}
+			if (++rows % FLUSH_EVERY == 0) {
+				writer.flush();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	void finish() throws IOException {
+		writer.flush();
+	}
+
+	private void writeCsvLine(Object[] values) {
+		try {
+			for (int i = 0; i < values.length; i++) {
+				if (i > 0) {
+					writer.write(',');
+				}
+				writer.write(escape(values[i]));
+			}
+			writer.write('\n');
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	static String escape(Object value) {
+		if (value == null) {
+			return "";
+		}
+		String text = value.toString();
+		if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+			return text;
+		}
+		return '"' + text.replace("\"", "\"\"") + '"';
+	}
+}
@@ -1,26 +1,38 @@
 package com.luiz.libraryapi.api.resouce;
 
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
-import com.luiz.libraryapi.api.dto.BookDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.luiz.libraryapi.api.dto.CursorPageDTO;
+import com.luiz.libraryapi.api.dto.LoanBatchResultDTO;
 import com.luiz.libraryapi.api.dto.LoanDTO;
 import com.luiz.libraryapi.api.dto.LoanFilterDTO;
 import com.luiz.libraryapi.api.dto.ReturnedLoanDTO;
+import com.luiz.libraryapi.api.dto.SliceDTO;
+import com.luiz.libraryapi.api.mapper.LoanMapper;
+import com.luiz.libraryapi.exception.BusinessException;
 import com.luiz.libraryapi.model.entity.Book;
 import com.luiz.libraryapi.model.entity.Loan;
 import com.luiz.libraryapi.service.BookService;
 import com.luiz.libraryapi.service.LoanService;
+import com.luiz.libraryapi.service.impl.TableChangeCounter;
 
 
 @RestController
@@ -30,7 +42,9 @@ public class LoanController {
 
 	private final LoanService service;
     private final BookService bookService;
-    private final ModelMapper modelMapper;
+    private final LoanMapper loanMapper;
+    private final ObjectMapper objectMapper;
+    private final TableChangeCounter changes;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -49,31 +63,126 @@ public class LoanController {
         return entity.getId();
     }
 
+    @PostMapping("batch")
+    public List<LoanBatchResultDTO> createBatch(@RequestBody List<LoanDTO> dtos) {
+        if (dtos.size() > LoanBatchResultDTO.MAX_ITEMS) {
+            throw new BusinessException("Too many loans, max is " + LoanBatchResultDTO.MAX_ITEMS);
+        }
+        Map<String, Book> books = bookService.getBooksByIsbn(
+                dtos.stream().map(LoanDTO::getIsbn).collect(Collectors.toList()));
+
+        LoanBatchResultDTO[] results = new LoanBatchResultDTO[dtos.size()];
+        List<Integer> positions = new ArrayList<>();
+        List<Loan> entities = new ArrayList<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            LoanDTO dto = dtos.get(i);
+            Book book = books.get(dto.getIsbn());
+            if (book == null) {
+                results[i] = LoanBatchResultDTO.failed(dto.getIsbn(), "Book not found for passed isbn");
+                continue;
+            }
+            positions.add(i);
+            entities.add(Loan.builder()
+                    .book(book)
+                    .customer(dto.getCustomer())
+                    .loanDate(LocalDate.now())
+                    .build());
+        }
+
+        List<Loan> saved = entities.isEmpty() ? entities : service.saveAll(entities);
+        for (int j = 0; j < saved.size(); j++) {
+            int i = positions.get(j);
+            String isbn = dtos.get(i).getIsbn();
+            Loan loan = saved.get(j);
+            results[i] = loan == null
+                    ? LoanBatchResultDTO.failed(isbn, "Book already loaned")
+                    : LoanBatchResultDTO.created(isbn, loan.getId());
+        }
+        return List.of(results);
+    }
+
+    @GetMapping("{id}")
+    public LoanDTO get(@PathVariable Long id, WebRequest request) {
+        Loan loan = service.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        if (ETags.checkNotModified(request, ETags.of(loan))) {
+            return null;
+        }
+        return loanMapper.toDto(loan);
+    }
+
     @PatchMapping("{id}")
     public void returnBook(
             @PathVariable Long id,
             @RequestBody ReturnedLoanDTO dto) {
+        if (Boolean.TRUE.equals(dto.getReturned())) {
+            switch (service.returnLoan(id)) {
+            case NOT_FOUND:
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+            case ALREADY_RETURNED:
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Loan already returned");
+            default:
+                return;
+            }
+        }
         Loan loan = service.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
         loan.setReturned(dto.getReturned());
         service.update(loan);
     }
 
     @GetMapping
-    public Page<LoanDTO> find(LoanFilterDTO dto, Pageable pageRequest) {
+    public Page<LoanDTO> find(LoanFilterDTO dto, Pageable pageRequest, WebRequest request) {
+        if (ETags.checkNotModified(request, ETags.loans(changes))) {
+            return null;
+        }
         Page<Loan> result = service.find(dto, pageRequest);
         List<LoanDTO> loans = result
                 .getContent()
                 .stream()
-                .map(entity -> {
+                .map(loanMapper::toDto)
+                .collect(Collectors.toList());
+        return new PageImpl<LoanDTO>(loans, pageRequest, result.getTotalElements());
+    }
+
+    @GetMapping("export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = ExportWriter.NDJSON) String format) {
+        MediaType mediaType = ExportWriter.mediaType(format);
+        StreamingResponseBody body = out -> {
+            ExportWriter<LoanDTO> writer = new ExportWriter<>(format, out, objectMapper,
+                    new String[] { "id", "isbn", "customer", "email", "title", "author" },
+                    dto -> new Object[] { dto.getId(), dto.getIsbn(), dto.getCustomer(), dto.getEmail(),
+                            dto.getBook().getTitle(), dto.getBook().getAuthor() });
+            service.forEachLoan(summary -> writer.write(loanMapper.toDto(summary)));
+            writer.finish();
+        };
+        return ResponseEntity.ok().contentType(mediaType).body(body);
+    }
 
-                    Book book = entity.getBook();
-                    BookDTO bookDTO = modelMapper.map(book, BookDTO.class);
-                    LoanDTO loanDTO = modelMapper.map(entity, LoanDTO.class);
-                    loanDTO.setBook(bookDTO);
-                    return loanDTO;
+    @GetMapping(params = { "count", "!after" })
+    public SliceDTO<LoanDTO> findSlice(LoanFilterDTO dto, @RequestParam String count, Pageable pageRequest,
+            WebRequest request) {
+        if (ETags.checkNotModified(request, ETags.loans(changes))) {
+            return null;
+        }
+        Slice<Loan> result = service.findSlice(dto, pageRequest);
+        switch (count) {
+        case SliceDTO.COUNT_NONE:
+            return SliceDTO.of(result, loanMapper::toDto);
+        case SliceDTO.COUNT_APPROXIMATE:
+            return SliceDTO.of(result, loanMapper::toDto, service.approximateCount(dto));
+        default:
+            throw new BusinessException("Invalid count mode: " + count);
+        }
+    }
 
-                }).collect(Collectors.toList());
-        return new PageImpl<LoanDTO>(loans, pageRequest, result.getTotalElements());
+    @GetMapping(params = "after")
+    public CursorPageDTO<LoanDTO> findAfter(LoanFilterDTO dto, @RequestParam String after,
+            @RequestParam(defaultValue = "20") int size, WebRequest request) {
+        if (ETags.checkNotModified(request, ETags.loans(changes))) {
+            return null;
+        }
+        int limit = CursorPageDTO.limit(size);
+        List<Loan> rows = service.findAfter(dto, CursorPageDTO.decode(after), limit + 1);
+        return CursorPageDTO.of(rows, limit, Loan::getId, loanMapper::toDto);
     }
 	
 }
@@ -0,0 +1,25 @@
+package com.luiz.libraryapi.api.resouce;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.luiz.libraryapi.api.dto.MailOutboxStatusDTO;
+import com.luiz.libraryapi.service.MailOutboxService;
+
+import io.swagger.annotations.ApiOperation;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping ("/api/mail-outbox")
+@RequiredArgsConstructor
+public class MailOutboxController {
+
+	private final MailOutboxService service;
+
+	@GetMapping("status")
+	@ApiOperation("Shows the late loan mail backlog")
+	public MailOutboxStatusDTO status() {
+		return service.getStatus();
+	}
+}
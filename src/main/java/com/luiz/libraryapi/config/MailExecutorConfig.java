@@ -0,0 +1,63 @@
+package com.luiz.libraryapi.config;
+
+import java.util.Collections;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.TaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+/**
+ * Pool unico que envia os emails da outbox, com fila do tamanho do lote e
+ * CallerRunsPolicy: se a fila enche, quem reivindicou o lote envia ele mesmo.
+ * Exposto como bean para ser dimensionado pelas properties, medido
+ * (executor.* com name=late-loan-mail) e encerrado junto com o contexto,
+ * esperando os envios em andamento.
+ *
+ * O Spring Boot so cria o applicationTaskExecutor (usado pelo MVC nas
+ * respostas StreamingResponseBody) se nao houver outro Executor no
+ * contexto, entao ele e declarado aqui do mesmo jeito que o Boot faria.
+ */
+@Configuration
+public class MailExecutorConfig {
+
+	public static final String LATE_LOAN_MAIL_EXECUTOR = "lateLoanMailExecutor";
+
+	@Bean(name = LATE_LOAN_MAIL_EXECUTOR)
+	public ThreadPoolTaskExecutor lateLoanMailExecutor(
+			@Value("${application.email.lateloans.workers:4}") int workers,
+			@Value("${application.email.outbox.batch-size:100}") int batchSize) {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(workers);
+		executor.setMaxPoolSize(workers);
+		executor.setQueueCapacity(batchSize);
+		executor.setThreadNamePrefix("late-loan-mail-");
+		executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+		executor.setWaitForTasksToCompleteOnShutdown(true);
+		executor.setAwaitTerminationSeconds(30);
+		return executor;
+	}
+
+	@Bean
+	public MeterBinder lateLoanMailExecutorMetrics(@Qualifier(LATE_LOAN_MAIL_EXECUTOR) ThreadPoolTaskExecutor executor) {
+		return registry -> new ExecutorServiceMetrics(executor.getThreadPoolExecutor(), "late-loan-mail",
+				Collections.emptyList()).bindTo(registry);
+	}
+
+	@Lazy
+	@Bean(name = { TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+			AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME })
+	public ThreadPoolTaskExecutor applicationTaskExecutor(ObjectProvider<TaskExecutorBuilder> builder) {
+		return builder.getIfAvailable(TaskExecutorBuilder::new).build();
+	}
+}
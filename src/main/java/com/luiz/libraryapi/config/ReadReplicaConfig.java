@@ -0,0 +1,91 @@
+package com.luiz.libraryapi.config;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Liga o roteamento para replicas de leitura quando
+ * application.datasource.replica.urls estiver preenchido (lista separada por
+ * virgula). Sem a propriedade, o DataSource continua o do Spring Boot.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "application.datasource.replica", name = "urls")
+public class ReadReplicaConfig {
+
+	@Value("${application.datasource.replica.urls}")
+	private List<String> urls;
+
+	@Value("${application.datasource.replica.username:${spring.datasource.username:sa}}")
+	private String username;
+
+	@Value("${application.datasource.replica.password:${spring.datasource.password:}}")
+	private String password;
+
+	@Value("${application.datasource.replica.pool-size:10}")
+	private int poolSize;
+
+	@Value("${application.datasource.replica.read-your-writes-ms:5000}")
+	private long readYourWritesMs;
+
+	@Bean
+	@ConfigurationProperties("spring.datasource.hikari")
+	public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+		return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+	}
+
+	@Bean
+	public ReadReplicaRoutingDataSource readReplicaRoutingDataSource(HikariDataSource primaryDataSource) {
+		Map<String, DataSource> replicas = new LinkedHashMap<>();
+		for (int i = 0; i < urls.size(); i++) {
+			String name = "replica-" + i;
+			replicas.put(name, replica(name, urls.get(i).trim()));
+		}
+		return new ReadReplicaRoutingDataSource(primaryDataSource, replicas);
+	}
+
+	@Bean
+	@Primary
+	public DataSource dataSource(ReadReplicaRoutingDataSource readReplicaRoutingDataSource) {
+		return new LazyConnectionDataSourceProxy(readReplicaRoutingDataSource);
+	}
+
+	@Bean
+	public ReadYourWritesFilter readYourWritesFilter() {
+		return new ReadYourWritesFilter(readYourWritesMs);
+	}
+
+	@Bean
+	public HealthIndicator readReplicasHealthIndicator(ReadReplicaRoutingDataSource readReplicaRoutingDataSource) {
+		// replica fora so degrada as leituras para o primario, a aplicacao segue UP
+		return () -> Health.up().withDetails(readReplicaRoutingDataSource.getReplicaStatus()).build();
+	}
+
+	private HikariDataSource replica(String name, String url) {
+		HikariDataSource replica = new HikariDataSource();
+		replica.setPoolName(name);
+		replica.setJdbcUrl(url);
+		replica.setUsername(username);
+		replica.setPassword(password);
+		replica.setMaximumPoolSize(poolSize);
+		replica.setReadOnly(true);
+		// nao derruba a subida se a replica estiver fora; a checagem a tira do rodizio
+		replica.setInitializationFailTimeout(-1);
+		return replica;
+	}
+}
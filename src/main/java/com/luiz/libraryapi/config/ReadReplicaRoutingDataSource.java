@@ -0,0 +1,190 @@
+package com.luiz.libraryapi.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Manda as transacoes @Transactional(readOnly = true) para uma replica (em
+ * rodizio entre as que estao no ar) e todo o resto para o primario. Precisa
+ * ficar atras de um LazyConnectionDataSourceProxy: a conexao so e pedida no
+ * primeiro comando, quando a transacao ja esta marcada como somente leitura.
+ *
+ * Uma replica que falha ao conectar sai do rodizio na hora (a leitura cai no
+ * primario) e so volta quando a checagem periodica conseguir uma conexao
+ * valida. Dentro de {@link #pinToPrimary()} tudo vai para o primario, mesmo
+ * as leituras (read-your-writes).
+ */
+@Slf4j
+public class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+	public static final String PRIMARY = "primary";
+
+	private static final int VALID_TIMEOUT_SECONDS = 2;
+	private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+	private final DataSource primary;
+	private final List<Replica> replicas = new ArrayList<>();
+	private final AtomicInteger next = new AtomicInteger();
+
+	public ReadReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas) {
+		this.primary = primary;
+		Map<Object, Object> targets = new HashMap<>();
+		targets.put(PRIMARY, primary);
+		replicas.forEach((name, dataSource) -> {
+			targets.put(name, dataSource);
+			this.replicas.add(new Replica(name, dataSource));
+		});
+		setTargetDataSources(targets);
+		setDefaultTargetDataSource(primary);
+		setLenientFallback(false);
+		afterPropertiesSet();
+	}
+
+	/**
+	 * Faz tudo o que rodar nesta thread ate o close() usar o primario.
+	 */
+	public static Pin pinToPrimary() {
+		Boolean previous = PINNED.get();
+		PINNED.set(Boolean.TRUE);
+		return () -> {
+			if (previous == null) {
+				PINNED.remove();
+			} else {
+				PINNED.set(previous);
+			}
+		};
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		Replica replica = chooseReplica();
+		return replica == null ? PRIMARY : replica.name;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		Replica replica = chooseReplica();
+		if (replica == null) {
+			return primary.getConnection();
+		}
+		try {
+			return replica.dataSource.getConnection();
+		} catch (SQLException e) {
+			replica.markDown(e.getMessage());
+			return primary.getConnection();
+		}
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		Replica replica = chooseReplica();
+		if (replica == null) {
+			return primary.getConnection(username, password);
+		}
+		try {
+			return replica.dataSource.getConnection(username, password);
+		} catch (SQLException e) {
+			replica.markDown(e.getMessage());
+			return primary.getConnection(username, password);
+		}
+	}
+
+	private Replica chooseReplica() {
+		if (replicas.isEmpty() || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+				|| Boolean.TRUE.equals(PINNED.get())) {
+			return null;
+		}
+		int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+		for (int i = 0; i < replicas.size(); i++) {
+			Replica replica = replicas.get((start + i) % replicas.size());
+			if (replica.up) {
+				return replica;
+			}
+		}
+		return null;
+	}
+
+	@Scheduled(fixedDelayString = "${application.datasource.replica.health-check-ms:5000}")
+	public void checkReplicas() {
+		for (Replica replica : replicas) {
+			try (Connection connection = replica.dataSource.getConnection()) {
+				if (connection.isValid(VALID_TIMEOUT_SECONDS)) {
+					replica.markUp();
+				} else {
+					replica.markDown("connection is not valid");
+				}
+			} catch (SQLException e) {
+				replica.markDown(e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Situacao de cada replica: "UP" ou o ultimo erro.
+	 */
+	public Map<String, String> getReplicaStatus() {
+		Map<String, String> status = new LinkedHashMap<>();
+		replicas.forEach(replica -> status.put(replica.name, replica.up ? "UP" : "DOWN: " + replica.lastError));
+		return Collections.unmodifiableMap(status);
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		for (Replica replica : replicas) {
+			if (replica.dataSource instanceof AutoCloseable) {
+				((AutoCloseable) replica.dataSource).close();
+			}
+		}
+	}
+
+	public interface Pin extends AutoCloseable {
+
+		@Override
+		void close();
+	}
+
+	private static class Replica {
+
+		private final String name;
+		private final DataSource dataSource;
+		private volatile boolean up = true;
+		private volatile String lastError;
+
+		Replica(String name, DataSource dataSource) {
+			this.name = name;
+			this.dataSource = dataSource;
+		}
+
+		void markUp() {
+			if (!up) {
+				log.info("read replica {} is back, routing reads to it again", name);
+			}
+			up = true;
+			lastError = null;
+		}
+
+		void markDown(String error) {
+			if (up) {
+				log.warn("read replica {} is down, reading from the primary: {}", name, error);
+			}
+			up = false;
+			lastError = error;
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package com.luiz.libraryapi.config;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.luiz.libraryapi.config.ReadReplicaRoutingDataSource.Pin;
+
+/**
+ * Requisicoes que escrevem (tudo menos GET/HEAD/OPTIONS) rodam inteiras no
+ * primario e deixam um cookie com o instante ate quando o cliente deve
+ * continuar lendo do primario, cobrindo o atraso de replicacao. Enquanto o
+ * cookie valer, os GETs desse cliente tambem ficam no primario.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+	public static final String COOKIE = "primary-until";
+
+	private final long windowMillis;
+
+	public ReadYourWritesFilter(long windowMillis) {
+		this.windowMillis = windowMillis;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		boolean write = !isSafe(request.getMethod());
+		if (!write && !recentlyWrote(request)) {
+			chain.doFilter(request, response);
+			return;
+		}
+		if (write) {
+			Cookie cookie = new Cookie(COOKIE, String.valueOf(System.currentTimeMillis() + windowMillis));
+			cookie.setPath("/");
+			cookie.setHttpOnly(true);
+			cookie.setMaxAge((int) Math.max(1, (windowMillis + 999) / 1000));
+			response.addCookie(cookie);
+		}
+		try (Pin pin = ReadReplicaRoutingDataSource.pinToPrimary()) {
+			chain.doFilter(request, response);
+		}
+	}
+
+	private static boolean isSafe(String method) {
+		return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method);
+	}
+
+	private static boolean recentlyWrote(HttpServletRequest request) {
+		if (request.getCookies() == null) {
+			return false;
+		}
+		for (Cookie cookie : request.getCookies()) {
+			if (COOKIE.equals(cookie.getName())) {
+				try {
+					return Long.parseLong(cookie.getValue()) > System.currentTimeMillis();
+				} catch (NumberFormatException e) {
+					return false;
+				}
+			}
+		}
+		return false;
+	}
+}
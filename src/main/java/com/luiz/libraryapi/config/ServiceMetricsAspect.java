@@ -0,0 +1,49 @@
+package com.luiz.libraryapi.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Mede cada metodo publico de BookService, LoanService e EmailService no timer
+ * "library.service" (tags service, method e exception). Os percentis e o
+ * histograma sao configurados em application.properties. Junto com
+ * spring.data.repository.invocations (tempo de banco) e http.server.requests
+ * (requisicao inteira) da para separar o tempo de banco do de mapeamento e
+ * serializacao.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class ServiceMetricsAspect {
+
+	public static final String METRIC = "library.service";
+
+	private final MeterRegistry registry;
+
+	@Around("execution(public * com.luiz.libraryapi.service.BookService+.*(..))"
+			+ " || execution(public * com.luiz.libraryapi.service.BookDeleteService+.*(..))"
+			+ " || execution(public * com.luiz.libraryapi.service.LoanService+.*(..))"
+			+ " || execution(public * com.luiz.libraryapi.service.EmailService+.*(..))"
+			+ " || execution(public * com.luiz.libraryapi.service.MailOutboxService+.*(..))")
+	public Object time(ProceedingJoinPoint point) throws Throwable {
+		Timer.Sample sample = Timer.start(registry);
+		String exception = "none";
+		try {
+			return point.proceed();
+		} catch (Throwable e) {
+			exception = e.getClass().getSimpleName();
+			throw e;
+		} finally {
+			sample.stop(registry.timer(METRIC,
+					"service", point.getSignature().getDeclaringType().getSimpleName(),
+					"method", point.getSignature().getName(),
+					"exception", exception));
+		}
+	}
+}
@@ -3,7 +3,15 @@ package com.luiz.libraryapi.model.entity;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import javax.persistence.*;
 import java.util.List;
@@ -14,11 +22,19 @@ import java.util.List;
 @NoArgsConstructor
 @Entity
 @Table
+@Cache (usage = CacheConcurrencyStrategy.READ_WRITE, region = Book.CACHE_REGION)
+@NaturalIdCache (region = Book.NATURAL_ID_CACHE_REGION)
+@BatchSize (size = 50) // proxies de Loan.book inicializados em lote
 public class Book {
 
+	public static final String CACHE_REGION = "books";
+	public static final String NATURAL_ID_CACHE_REGION = "books-isbn";
+
+
 	@Id
 	@Column
-	@GeneratedValue (strategy = GenerationType.IDENTITY)
+	@GeneratedValue (strategy = GenerationType.SEQUENCE, generator = "book_seq")
+	@SequenceGenerator (name = "book_seq", sequenceName = "book_seq", allocationSize = 50)
 	private Long id;
 	
 	@Column
@@ -27,9 +43,17 @@ public class Book {
 	@Column
 	private String author;
 	
+	@NaturalId
 	@Column
 	private String isbn;
 	
-	@OneToMany (mappedBy = "book" )
+	@Version
+	private Long version;
+	
+	// historico completo: so carregado se alguem percorrer a lista
+	@OneToMany (mappedBy = "book", fetch = FetchType.LAZY)
+	@BatchSize (size = 50)
+	@ToString.Exclude
+	@EqualsAndHashCode.Exclude
 	private List<Loan> loans;
 }
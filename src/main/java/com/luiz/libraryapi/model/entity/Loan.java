@@ -3,7 +3,9 @@ package com.luiz.libraryapi.model.entity;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import javax.persistence.*;
 import java.time.LocalDate;
@@ -13,10 +15,14 @@ import java.time.LocalDate;
 @NoArgsConstructor
 @Builder
 @Entity
+@NamedEntityGraph (name = Loan.WITH_BOOK, attributeNodes = @NamedAttributeNode ("book"))
 public class Loan {
+
+	public static final String WITH_BOOK = "Loan.withBook";
 	
 	@Id
-	@GeneratedValue (strategy = GenerationType.IDENTITY)
+	@GeneratedValue (strategy = GenerationType.SEQUENCE, generator = "loan_seq")
+	@SequenceGenerator (name = "loan_seq", sequenceName = "loan_seq", allocationSize = 50)
 	private Long id;
 	
 	@Column (length = 100)
@@ -26,7 +32,9 @@ public class Loan {
 	private String customerEmail;
 	
 	@JoinColumn (name = "id_book")
-	@ManyToOne //tem uma forent key
+	@ManyToOne (fetch = FetchType.LAZY) //tem uma forent key
+	@ToString.Exclude
+	@EqualsAndHashCode.Exclude
 	private Book book;
 	
 	@Column
@@ -34,5 +42,8 @@ public class Loan {
 	
 	@Column
 	private Boolean returned;
+	
+	@Version
+	private Long version;
 
 }
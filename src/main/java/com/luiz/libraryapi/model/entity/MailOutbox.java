@@ -0,0 +1,52 @@
+package com.luiz.libraryapi.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table (name = "mail_outbox")
+public class MailOutbox {
+
+	public enum Status { PENDING, SENT, FAILED }
+
+	@Id
+	@GeneratedValue (strategy = GenerationType.SEQUENCE, generator = "mail_outbox_seq")
+	@SequenceGenerator (name = "mail_outbox_seq", sequenceName = "mail_outbox_seq", allocationSize = 50)
+	private Long id;
+
+	@Column (nullable = false)
+	private String recipient;
+
+	@Column (nullable = false, length = 2000)
+	private String message;
+
+	@Enumerated (EnumType.STRING)
+	@Column (nullable = false, length = 20)
+	private Status status;
+
+	@Column (nullable = false)
+	private int attempts;
+
+	//tambem serve de lease: quem reivindica o lote empurra para frente
+	@Column (name = "next_attempt_at", nullable = false)
+	private LocalDateTime nextAttemptAt;
+
+	@Column (name = "created_at", nullable = false)
+	private LocalDateTime createdAt;
+
+	@Column (name = "sent_at")
+	private LocalDateTime sentAt;
+
+	@Column (name = "last_error", length = 500)
+	private String lastError;
+
+}
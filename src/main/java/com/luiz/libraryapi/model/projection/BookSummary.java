@@ -0,0 +1,8 @@
+package com.luiz.libraryapi.model.projection;
+
+/**
+ * Colunas de Book usadas pelas leituras em massa, sem a entidade (nem a lista
+ * de emprestimos) no contexto de persistencia.
+ */
+public record BookSummary(Long id, String title, String author, String isbn) {
+}
@@ -0,0 +1,9 @@
+package com.luiz.libraryapi.model.projection;
+
+/**
+ * Um emprestimo com as colunas do livro ja achatadas, lido por expressao de
+ * construtor no lugar de Loan + Book.
+ */
+public record LoanSummary(Long id, String customer, String customerEmail, Long bookId, String title, String author,
+		String isbn) {
+}
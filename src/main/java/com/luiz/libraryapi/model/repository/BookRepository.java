@@ -1,16 +1,81 @@
 package com.luiz.libraryapi.model.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import com.luiz.libraryapi.model.entity.Book;
+import com.luiz.libraryapi.model.projection.BookSummary;
 
-public interface BookRepository extends JpaRepository<Book , Long>{
+public interface BookRepository extends JpaRepository<Book , Long>, BookRepositoryCustom{
 
 	boolean existsByIsbn(String isbn);
 	
-	Optional<Book> findByIsbn(String isbn);
+	List<Book> findByIsbnIn(Collection<String> isbns);
+
+	@QueryHints({
+			@QueryHint(name = org.hibernate.annotations.QueryHints.FETCH_SIZE, value = "500") })
+	@Query(" select new com.luiz.libraryapi.model.projection.BookSummary(b.id, b.title, b.author, b.isbn) " +
+			" from Book b order by b.id ")
+	Stream<BookSummary> streamAllSummaries();
+
+	@Query(" select b.version from Book b where b.id = :id ")
+	Optional<Long> findVersionById(@Param("id") Long id);
+
+	@Query(" select b.isbn from Book b where b.isbn in :isbns ")
+	List<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
+
+	@Query(" select b from Book b where b.id > :after " +
+			" and ( :title is null or lower(b.title) like lower(concat('%', :title, '%')) ) " +
+			" and ( :author is null or lower(b.author) like lower(concat('%', :author, '%')) ) " +
+			" and ( :isbn is null or lower(b.isbn) like lower(concat('%', :isbn, '%')) ) " +
+			" order by b.id ")
+	List<Book> findByFilterAfter(
+			@Param("title") String title,
+			@Param("author") String author,
+			@Param("isbn") String isbn,
+			@Param("after") Long after,
+			Pageable pageable);
+
+	/**
+	 * Ids do DELETE por filtro. title e author casam por trecho como na
+	 * listagem, mas o isbn tem que ser exato: ?isbn=1 nao pode apagar todo
+	 * livro cujo isbn contem um 1.
+	 */
+	@Query(" select b.id from Book b where b.id > :after " +
+			" and ( :title is null or lower(b.title) like lower(concat('%', :title, '%')) ) " +
+			" and ( :author is null or lower(b.author) like lower(concat('%', :author, '%')) ) " +
+			" and ( :isbn is null or b.isbn = :isbn ) " +
+			" order by b.id ")
+	List<Long> findIdsByFilterAfter(
+			@Param("title") String title,
+			@Param("author") String author,
+			@Param("isbn") String isbn,
+			@Param("after") Long after,
+			Pageable pageable);
+
+	@Modifying
+	@Query(" delete from Book b where b.id in :ids ")
+	int bulkDeleteByIds(@Param("ids") Collection<Long> ids);
+
+	@Query(" select b from Book b where ( :title is null or lower(b.title) like lower(concat('%', :title, '%')) ) " +
+			" and ( :author is null or lower(b.author) like lower(concat('%', :author, '%')) ) " +
+			" and ( :isbn is null or lower(b.isbn) like lower(concat('%', :isbn, '%')) ) ")
+	Slice<Book> findSliceByFilter(
+			@Param("title") String title,
+			@Param("author") String author,
+			@Param("isbn") String isbn,
+			Pageable pageable);
 
-	
 }
@@ -0,0 +1,21 @@
+package com.luiz.libraryapi.model.repository;
+
+import java.util.Map;
+import java.util.Optional;
+
+import com.luiz.libraryapi.model.entity.Book;
+
+public interface BookRepositoryCustom {
+
+	/**
+	 * Busca pelo ISBN como natural id: o id vem do cache de natural id e o
+	 * livro do cache de segundo nivel, sem ir ao banco quando ambos acertam.
+	 */
+	Optional<Book> findByIsbn(String isbn);
+
+	/**
+	 * UPDATE de uma linha so com as colunas informadas, condicionado a versao
+	 * esperada e incrementando-a. Devolve as linhas afetadas (0 ou 1).
+	 */
+	int patch(Long id, long expectedVersion, Map<String, String> columns);
+}
@@ -0,0 +1,40 @@
+package com.luiz.libraryapi.model.repository;
+
+import java.util.Map;
+import java.util.Optional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Root;
+
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.luiz.libraryapi.model.entity.Book;
+
+class BookRepositoryImpl implements BookRepositoryCustom {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	@Transactional(readOnly = true)
+	public Optional<Book> findByIsbn(String isbn) {
+		return entityManager.unwrap(Session.class).bySimpleNaturalId(Book.class).loadOptional(isbn);
+	}
+
+	@Override
+	public int patch(Long id, long expectedVersion, Map<String, String> columns) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaUpdate<Book> update = cb.createCriteriaUpdate(Book.class);
+		Root<Book> book = update.from(Book.class);
+		columns.forEach((attribute, value) -> update.set(book.<String>get(attribute), value));
+		Path<Long> version = book.get("version");
+		update.set(version, cb.sum(version, 1L));
+		update.where(cb.equal(book.get("id"), id), cb.equal(version, expectedVersion));
+		return entityManager.createQuery(update).executeUpdate();
+	}
+}
@@ -1,16 +1,26 @@
 package com.luiz.libraryapi.model.repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import com.luiz.libraryapi.model.entity.Book;
 import com.luiz.libraryapi.model.entity.Loan;
+import com.luiz.libraryapi.model.projection.LoanSummary;
 
 public interface LoanRepository extends JpaRepository<Loan , Long>{
 	
@@ -18,17 +28,79 @@ public interface LoanRepository extends JpaRepository<Loan , Long>{
             " from Loan l where l.book = :book and ( l.returned is null or l.returned is false ) ")
     boolean existsByBookAndNotReturned( @Param("book") Book book );
 
-    @Query( value = " select l from Loan as l join l.book as b where b.isbn = :isbn or l.customer =:customer ")
+    @Query(" select l.book.id from Loan l where l.id = :id ")
+    Optional<Long> findBookIdById( @Param("id") Long id );
+
+    // a versao sobe junto para que o ETag do emprestimo mude
+    @Modifying
+    @Query(" update Loan l set l.returned = true, l.version = l.version + 1 " +
+            " where l.id = :id and ( l.returned is null or l.returned is false ) ")
+    int markReturned( @Param("id") Long id );
+
+    @Query(" select l.book.id from Loan l where l.returned is null or l.returned is false ")
+    List<Long> findActiveLoanBookIds();
+
+    @Query(" select distinct l.book.id from Loan l where l.book.id in :bookIds and ( l.returned is null or l.returned is false ) ")
+    List<Long> findActiveLoanBookIdsIn( @Param("bookIds") Collection<Long> bookIds );
+
+    @Query(" select distinct l.book.id from Loan l where l.book.id in :bookIds ")
+    List<Long> findLoanedBookIdsIn( @Param("bookIds") Collection<Long> bookIds );
+
+    @Modifying
+    @Query(" delete from Loan l where l.book.id in :bookIds ")
+    int bulkDeleteByBookIds( @Param("bookIds") Collection<Long> bookIds );
+
+    @Query( value = " select l from Loan as l join fetch l.book as b where b.isbn = :isbn or l.customer =:customer ",
+            countQuery = " select count(l) from Loan as l join l.book as b where b.isbn = :isbn or l.customer =:customer ")
     Page<Loan> findByBookIsbnOrCustomer(
             @Param("isbn") String isbn,
             @Param("customer") String customer,
             Pageable pageable
     );
 
+    @Query( value = " select l from Loan as l join fetch l.book as b where b.isbn = :isbn or l.customer =:customer ")
+    Slice<Loan> findSliceByBookIsbnOrCustomer(
+            @Param("isbn") String isbn,
+            @Param("customer") String customer,
+            Pageable pageable
+    );
+
+    @Query( value = " select count(l) from Loan as l join l.book as b where b.isbn = :isbn or l.customer =:customer ")
+    long countByBookIsbnOrCustomer( @Param("isbn") String isbn, @Param("customer") String customer );
+
+    @EntityGraph(Loan.WITH_BOOK)
     Page<Loan> findByBook( Book book, Pageable pageable );
 
+    @EntityGraph(Loan.WITH_BOOK)
+    Slice<Loan> findSliceByBook( Book book, Pageable pageable );
+
+    long countByBook( Book book );
+
+    @Query( value = " select l from Loan as l join fetch l.book as b " +
+            " where ( b.isbn = :isbn or l.customer = :customer ) and l.id > :after order by l.id ")
+    List<Loan> findByBookIsbnOrCustomerAfter(
+            @Param("isbn") String isbn,
+            @Param("customer") String customer,
+            @Param("after") Long after,
+            Pageable pageable
+    );
+
+    @Query( value = " select l from Loan as l join fetch l.book as b where b = :book and l.id > :after order by l.id ")
+    List<Loan> findByBookAfter( @Param("book") Book book, @Param("after") Long after, Pageable pageable );
+
+    @EntityGraph(Loan.WITH_BOOK)
     @Query(" select l from Loan l where l.loanDate <= :threeDaysAgo and ( l.returned is null or l.returned is false ) ")
     List<Loan> findByLoanDateLessThanAndNotReturned( @Param("threeDaysAgo") LocalDate threeDaysAgo );
+
+    @QueryHints( @QueryHint( name = org.hibernate.annotations.QueryHints.FETCH_SIZE, value = "500" ) )
+    @Query(" select l.customerEmail from Loan l where l.loanDate <= :threeDaysAgo " +
+            " and ( l.returned is null or l.returned is false ) and l.customerEmail is not null ")
+    Stream<String> streamLateLoanEmails( @Param("threeDaysAgo") LocalDate threeDaysAgo );
+
+    @QueryHints( @QueryHint( name = org.hibernate.annotations.QueryHints.FETCH_SIZE, value = "500" ) )
+    @Query(" select new com.luiz.libraryapi.model.projection.LoanSummary(l.id, l.customer, l.customerEmail, " +
+            " b.id, b.title, b.author, b.isbn) from Loan l join l.book b order by l.id ")
+    Stream<LoanSummary> streamAllSummaries();
 	
 
 	
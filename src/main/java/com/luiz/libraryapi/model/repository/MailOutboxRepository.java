@@ -0,0 +1,34 @@
+package com.luiz.libraryapi.model.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import com.luiz.libraryapi.model.entity.MailOutbox;
+import com.luiz.libraryapi.model.entity.MailOutbox.Status;
+
+public interface MailOutboxRepository extends JpaRepository<MailOutbox, Long> {
+
+    // -2 = LockOptions.SKIP_LOCKED: dispatchers em paralelo pegam lotes diferentes
+    // onde o banco suporta (PostgreSQL); no H2 vira um "for update" simples
+    @Lock( LockModeType.PESSIMISTIC_WRITE )
+    @QueryHints( @QueryHint( name = "javax.persistence.lock.timeout", value = "-2" ) )
+    @Query(" select m from MailOutbox m where m.status = :status and m.nextAttemptAt <= :now order by m.id ")
+    List<MailOutbox> findDue( @Param("status") Status status, @Param("now") LocalDateTime now, Pageable pageable );
+
+    long countByStatus( Status status );
+
+    long countByStatusAndAttemptsGreaterThan( Status status, int attempts );
+
+    @Query(" select min(m.createdAt) from MailOutbox m where m.status = :status ")
+    LocalDateTime findOldestCreatedAt( @Param("status") Status status );
+}
@@ -0,0 +1,29 @@
+package com.luiz.libraryapi.service;
+
+import java.util.Collection;
+
+import com.luiz.libraryapi.api.dto.BookDeleteResultDTO;
+import com.luiz.libraryapi.model.entity.Book;
+
+public interface BookDeleteService {
+
+	/**
+	 * O que fazer com os emprestimos (ativos ou nao) dos livros removidos:
+	 * REJECT recusa a operacao inteira, CASCADE apaga os emprestimos junto.
+	 */
+	enum LoanPolicy { REJECT, CASCADE }
+
+	int MAX_IDS = 1000;
+
+	/**
+	 * Remove os livros com os ids informados com DELETEs em lote, sem carregar
+	 * as entidades. Ids inexistentes sao ignorados.
+	 */
+	BookDeleteResultDTO deleteByIds(Collection<Long> ids, LoanPolicy policy);
+
+	/**
+	 * Remove os livros que casam com o filtro: title e author por trecho, como
+	 * na listagem, e isbn exato. Pelo menos um dos campos e obrigatorio.
+	 */
+	BookDeleteResultDTO deleteByFilter(Book filter, LoanPolicy policy);
+}
@@ -0,0 +1,18 @@
+package com.luiz.libraryapi.service;
+
+import java.io.InputStream;
+
+import com.luiz.libraryapi.api.dto.BookImportResultDTO;
+
+public interface BookImportService {
+
+	/**
+	 * Importa livros de um CSV com cabecalho (colunas title, author e isbn, em qualquer ordem).
+	 */
+	BookImportResultDTO importCsv(InputStream input);
+
+	/**
+	 * Importa livros de um arquivo NDJSON, um BookDTO por linha.
+	 */
+	BookImportResultDTO importNdjson(InputStream input);
+}
@@ -1,23 +1,66 @@
 package com.luiz.libraryapi.service;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import com.luiz.libraryapi.model.entity.Book;
+import com.luiz.libraryapi.model.projection.BookSummary;
 
 public interface BookService {
 
+	enum PatchOutcome { PATCHED, NOT_FOUND, VERSION_MISMATCH }
+
+	/**
+	 * Campos aceitos por {@link #patch(Long, long, Map)}.
+	 */
+	Set<String> PATCHABLE_FIELDS = Set.of("title", "author");
+
 	Book save(Book any);
 
+	/**
+	 * Salva os livros em uma unica transacao, ignorando os que ja tem o ISBN
+	 * cadastrado. Devolve apenas os livros efetivamente salvos.
+	 */
+	List<Book> saveAll(List<Book> books);
+
     Optional<Book> getById(Long id);
 
     void delete(Book book);
 
     Book update(Book book);
 
+    /**
+     * Altera so os campos informados (title/author) com um UPDATE condicionado a
+     * versao, sem carregar o livro. Em caso de sucesso a versao passa a ser
+     * expectedVersion + 1.
+     */
+    PatchOutcome patch(Long id, long expectedVersion, Map<String, String> fields);
+
+    Optional<Long> getVersion(Long id);
+
     Page<Book> find( Book filter, Pageable pageRequest );
 
+    List<Book> findAfter( Book filter, Long after, int limit );
+
+    Slice<Book> findSlice( Book filter, Pageable pageRequest );
+
+    long approximateCount( Book filter );
+
     Optional<Book> getBookByIsbn(String isbn);
+
+    Map<String, Book> getBooksByIsbn( Collection<String> isbns );
+
+    /**
+     * Percorre todos os livros em ordem de id com um cursor, lendo so as
+     * colunas (nenhuma entidade fica no contexto de persistencia).
+     */
+    void forEachBook( Consumer<BookSummary> consumer );
 }
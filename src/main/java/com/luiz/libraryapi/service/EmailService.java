@@ -9,4 +9,6 @@ public interface EmailService {
 
 	void sendMails(String mensage, List<String> mailsList);
 
+	void sendMail(String mensage, String mail);
+
 }
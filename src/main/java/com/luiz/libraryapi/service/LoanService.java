@@ -1,28 +1,74 @@
 package com.luiz.libraryapi.service;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 import com.luiz.libraryapi.api.dto.LoanFilterDTO;
 import com.luiz.libraryapi.model.entity.Book;
 import com.luiz.libraryapi.model.entity.Loan;
+import com.luiz.libraryapi.model.projection.LoanSummary;
 
 @Service
 public interface LoanService {
+
+	   enum ReturnOutcome { RETURNED, NOT_FOUND, ALREADY_RETURNED }
+
 	   Loan save( Loan loan );
 
 	    Optional<Loan> getById(Long id);
 
 	    Loan update(Loan loan);
 
+	    /**
+	     * Devolve o emprestimo com um unico UPDATE condicionado a ele ainda estar
+	     * em aberto, sem carregar e mesclar a entidade. Duas devolucoes
+	     * simultaneas nao passam as duas: a segunda recebe ALREADY_RETURNED.
+	     */
+	    ReturnOutcome returnLoan(Long id);
+
 	   Page<Loan> find(LoanFilterDTO filterDTO, Pageable pageable);
 
 	   Page<Loan> getLoansByBook( Book book, Pageable pageable);
 
+	   List<Loan> findAfter(LoanFilterDTO filterDTO, Long after, int limit);
+
+	   List<Loan> getLoansByBookAfter( Book book, Long after, int limit);
+
+	   Slice<Loan> findSlice(LoanFilterDTO filterDTO, Pageable pageable);
+
+	   long approximateCount(LoanFilterDTO filterDTO);
+
+	   Slice<Loan> getLoansByBookSlice( Book book, Pageable pageable);
+
+	   long approximateCountByBook( Book book );
+
+	   Map<Long, Boolean> getAvailability( Collection<Long> bookIds );
+
+	   /**
+	    * Salva os emprestimos em lote. A lista devolvida tem a mesma ordem da
+	    * recebida, com null nas posicoes cujo livro ja estava emprestado.
+	    */
+	   List<Loan> saveAll( List<Loan> loans );
+
 	   List<Loan> getAllLateLoans();
 
+	   /**
+	    * Percorre os emails dos emprestimos atrasados com um cursor do banco,
+	    * entregando-os ao consumidor em blocos de no maximo chunkSize.
+	    */
+	   void forEachLateLoanEmailChunk( int chunkSize, Consumer<List<String>> consumer );
+
+	   /**
+	    * Percorre todos os emprestimos (com as colunas do livro) em ordem de id com um cursor.
+	    */
+	   void forEachLoan( Consumer<LoanSummary> consumer );
+
 }
@@ -0,0 +1,32 @@
+package com.luiz.libraryapi.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import com.luiz.libraryapi.api.dto.MailOutboxStatusDTO;
+import com.luiz.libraryapi.model.entity.MailOutbox;
+
+public interface MailOutboxService {
+
+	/**
+	 * Grava uma mensagem pendente por emprestimo atrasado, na mesma transacao
+	 * da leitura dos emprestimos. Retorna quantas foram enfileiradas.
+	 */
+	int enqueueLateLoanMails(String message, int chunkSize);
+
+	/**
+	 * Reivindica ate batchSize mensagens vencidas, adiando a proxima tentativa
+	 * pelo tempo do lease para que outro dispatcher nao as pegue enquanto o
+	 * envio acontece fora da transacao.
+	 */
+	List<MailOutbox> claimBatch(int batchSize);
+
+	/**
+	 * Marca os ids enviados e agenda nova tentativa (com backoff exponencial)
+	 * para os que falharam, ou os marca como FAILED ao esgotar as tentativas.
+	 */
+	void recordResults(Collection<Long> sent, Map<Long, String> failed);
+
+	MailOutboxStatusDTO getStatus();
+}
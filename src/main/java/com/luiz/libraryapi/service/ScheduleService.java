@@ -1,37 +1,103 @@
 package com.luiz.libraryapi.service;
 
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
 
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import com.luiz.libraryapi.model.entity.Loan;
+import com.luiz.libraryapi.config.MailExecutorConfig;
+import com.luiz.libraryapi.model.entity.MailOutbox;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
 
 @Service
-@RequiredArgsConstructor
+@Slf4j
 public class ScheduleService {
 
 	public static final String CRON_LATE_LOANS = "0 0 0 1/1 * ?" ;
-	
+
 	@Value("${application.email.lateloans.message}")
 	private String mensage;
-	
-	private final LoanService loanService;
+
+	@Value("${application.email.lateloans.chunk-size:500}")
+	private int chunkSize;
+
+	@Value("${application.email.outbox.batch-size:100}")
+	private int batchSize;
+
+	private final MailOutboxService outboxService;
 	private final EmailService emailService;
-	
+	private final Executor mailExecutor;
+	private final Counter mailsSent;
+	private final Counter mailsFailed;
+
+	public ScheduleService(MailOutboxService outboxService, EmailService emailService,
+			@Qualifier(MailExecutorConfig.LATE_LOAN_MAIL_EXECUTOR) Executor mailExecutor, MeterRegistry registry) {
+		this.outboxService = outboxService;
+		this.emailService = emailService;
+		this.mailExecutor = mailExecutor;
+		this.mailsSent = registry.counter("library.late_loan.mails", "result", "sent");
+		this.mailsFailed = registry.counter("library.late_loan.mails", "result", "failed");
+	}
+
+	/**
+	 * So grava as mensagens na outbox, na mesma transacao da leitura dos
+	 * emprestimos atrasados. Quem envia e o dispatchMailOutbox, entao um SMTP
+	 * lento ou fora do ar nao segura nem perde o job.
+	 */
 	@Scheduled (cron = CRON_LATE_LOANS)
 	public void sendMailToLateLoans() {
-		List<Loan> allLateLoans = loanService.getAllLateLoans();
-		
-		List<String> mailsList =
-		allLateLoans.stream()
-		.map( loan -> loan.getCustomerEmail())
-		.collect(Collectors.toList());
-			
-		emailService.sendMails(mensage , mailsList);
+		int queued = outboxService.enqueueLateLoanMails(mensage, chunkSize);
+		log.info("late loan mails queued: {}", queued);
+	}
+
+	/**
+	 * Drena a outbox em lotes: reivindica um lote, envia fora da transacao no
+	 * pool limitado do MailExecutorConfig e grava o resultado de cada
+	 * mensagem. Repete enquanto os lotes vierem cheios.
+	 */
+	@Scheduled (fixedDelayString = "${application.email.outbox.poll-ms:5000}")
+	public void dispatchMailOutbox() {
+		List<MailOutbox> batch;
+		do {
+			batch = outboxService.claimBatch(batchSize);
+			if (batch.isEmpty()) {
+				break;
+			}
+			dispatch(batch);
+		} while (batch.size() == batchSize);
+	}
+
+	private void dispatch(List<MailOutbox> batch) {
+		Queue<Long> sent = new ConcurrentLinkedQueue<>();
+		Map<Long, String> failed = new ConcurrentHashMap<>();
+		CompletableFuture<?>[] sends = new CompletableFuture<?>[batch.size()];
+		for (int i = 0; i < batch.size(); i++) {
+			MailOutbox mail = batch.get(i);
+			sends[i] = CompletableFuture.runAsync(() -> {
+				try {
+					emailService.sendMail(mail.getMessage(), mail.getRecipient());
+					sent.add(mail.getId());
+					mailsSent.increment();
+				} catch (RuntimeException e) {
+					failed.put(mail.getId(), String.valueOf(e.getMessage()));
+					mailsFailed.increment();
+					log.warn("could not send late loan mail to {}: {}", mail.getRecipient(), e.getMessage());
+				}
+			}, mailExecutor);
+		}
+		CompletableFuture.allOf(sends).join();
+		outboxService.recordResults(sent, failed);
+		log.info("late loan mails sent: {}, failed: {}", sent.size(), failed.size());
 	}
 }
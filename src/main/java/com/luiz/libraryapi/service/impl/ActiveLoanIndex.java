@@ -0,0 +1,117 @@
+package com.luiz.libraryapi.service.impl;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Bitset em memoria com os livros que tem emprestimo ativo (nao devolvido),
+ * indexado pelo id do livro. Responde a disponibilidade de varios livros sem
+ * um COUNT por livro e serve de pre-checagem para novos emprestimos.
+ *
+ * Enquanto nao for carregado (ou se algum id nao couber em int) o indice
+ * fica "nao pronto" e os chamadores devem consultar o banco.
+ */
+@Component
+public class ActiveLoanIndex {
+
+	private final BitSet loaned = new BitSet();
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private volatile boolean ready;
+
+	public boolean isReady() {
+		return ready;
+	}
+
+	public void rebuild(Collection<Long> activeBookIds) {
+		lock.writeLock().lock();
+		try {
+			loaned.clear();
+			ready = false;
+			for (Long bookId : activeBookIds) {
+				if (!fits(bookId)) {
+					return;
+				}
+				loaned.set(bookId.intValue());
+			}
+			ready = true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public boolean isLoaned(Long bookId) {
+		lock.readLock().lock();
+		try {
+			return fits(bookId) && loaned.get(bookId.intValue());
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Marca o livro como emprestado se ainda nao estiver; devolve false se ja
+	 * havia emprestimo ativo. Checagem e marcacao sao atomicas, entao dois
+	 * emprestimos simultaneos do mesmo livro nao passam os dois.
+	 */
+	public boolean tryMarkLoaned(Long bookId) {
+		if (bookId == null) {
+			return true;
+		}
+		if (!fits(bookId)) {
+			ready = false;
+			return true;
+		}
+		lock.writeLock().lock();
+		try {
+			if (loaned.get(bookId.intValue())) {
+				return false;
+			}
+			loaned.set(bookId.intValue());
+			return true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void markLoaned(Long bookId) {
+		tryMarkLoaned(bookId);
+	}
+
+	public void markReturned(Long bookId) {
+		if (!fits(bookId)) {
+			return;
+		}
+		lock.writeLock().lock();
+		try {
+			loaned.clear(bookId.intValue());
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Disponibilidade (true = sem emprestimo ativo) de cada id, na ordem recebida.
+	 */
+	public Map<Long, Boolean> availability(Collection<Long> bookIds) {
+		Map<Long, Boolean> result = new LinkedHashMap<>();
+		lock.readLock().lock();
+		try {
+			for (Long bookId : bookIds) {
+				result.put(bookId, !(fits(bookId) && loaned.get(bookId.intValue())));
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+		return result;
+	}
+
+	private static boolean fits(Long bookId) {
+		return bookId != null && bookId >= 0 && bookId <= Integer.MAX_VALUE;
+	}
+}
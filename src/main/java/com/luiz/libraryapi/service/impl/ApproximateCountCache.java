@@ -0,0 +1,112 @@
+package com.luiz.libraryapi.service.impl;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Totais aproximados por filtro para as listagens paginadas.
+ *
+ * A primeira consulta de um filtro executa o COUNT; depois disso o valor e
+ * servido da memoria e recalculado em segundo plano quando fica mais velho
+ * que {@code ttlMillis}. Filtros que deixam de ser consultados saem do cache.
+ *
+ * A chave e a lista [tipo, valores do filtro...]: valores nulos e separadores
+ * dentro dos valores nao fazem dois filtros diferentes dividirem um total.
+ */
+@Component
+@Slf4j
+public class ApproximateCountCache {
+
+	private static final long MIN_IDLE_MILLIS = 600_000;
+
+	private final Map<List<?>, Entry> entries = new ConcurrentHashMap<>();
+	private final long ttlMillis;
+	private final int maxEntries;
+
+	public ApproximateCountCache() {
+		this(60_000, 1_000);
+	}
+
+	@Autowired
+	public ApproximateCountCache(
+			@Value("${application.count-cache.ttl-ms:60000}") long ttlMillis,
+			@Value("${application.count-cache.max-entries:1000}") int maxEntries) {
+		this.ttlMillis = ttlMillis;
+		this.maxEntries = maxEntries;
+	}
+
+	public long get(List<?> key, LongSupplier counter) {
+		Entry entry = entries.get(key);
+		long now = System.currentTimeMillis();
+		if (entry == null) {
+			// o COUNT roda fora do mapa: dentro do computeIfAbsent ele prenderia
+			// o bin inteiro. Duas primeiras leituras simultaneas contam as duas
+			// e fica a que chegar primeiro.
+			Entry created = new Entry(counter, counter.getAsLong(), now);
+			if (entries.size() >= maxEntries) {
+				evictLeastRecentlyRead();
+			}
+			entry = entries.putIfAbsent(key, created);
+			if (entry == null) {
+				entry = created;
+			}
+		}
+		entry.lastRead = now;
+		return entry.count;
+	}
+
+	/**
+	 * Remove os totais de um tipo (ex.: "loans") para que a proxima leitura
+	 * recalcule; usado quando uma escrita muda muito o total.
+	 */
+	public void invalidate(String kind) {
+		entries.keySet().removeIf(key -> !key.isEmpty() && kind.equals(key.get(0)));
+	}
+
+	@Scheduled(fixedDelayString = "${application.count-cache.refresh-ms:15000}")
+	public void refresh() {
+		long now = System.currentTimeMillis();
+		entries.forEach((key, entry) -> {
+			if (now - entry.lastRead > Math.max(10 * ttlMillis, MIN_IDLE_MILLIS)) {
+				entries.remove(key);
+			} else if (now - entry.refreshedAt >= ttlMillis) {
+				try {
+					entry.count = entry.counter.getAsLong();
+					entry.refreshedAt = now;
+				} catch (RuntimeException e) {
+					log.warn("could not refresh approximate count for {}", key, e);
+				}
+			}
+		});
+	}
+
+	private void evictLeastRecentlyRead() {
+		entries.entrySet().stream()
+				.min(Comparator.comparingLong(e -> e.getValue().lastRead))
+				.ifPresent(e -> entries.remove(e.getKey()));
+	}
+
+	private static class Entry {
+		final LongSupplier counter;
+		volatile long count;
+		volatile long refreshedAt;
+		volatile long lastRead;
+
+		Entry(LongSupplier counter, long count, long now) {
+			this.counter = counter;
+			this.count = count;
+			this.refreshedAt = now;
+			this.lastRead = now;
+		}
+	}
+}
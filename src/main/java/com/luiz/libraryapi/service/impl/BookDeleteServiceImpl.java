@@ -0,0 +1,116 @@
+package com.luiz.libraryapi.service.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.luiz.libraryapi.api.dto.BookDeleteResultDTO;
+import com.luiz.libraryapi.exception.BusinessException;
+import com.luiz.libraryapi.model.entity.Book;
+import com.luiz.libraryapi.model.repository.BookRepository;
+import com.luiz.libraryapi.model.repository.LoanRepository;
+import com.luiz.libraryapi.service.BookDeleteService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cada bloco de ids vira no maximo tres comandos: a busca dos livros com
+ * emprestimo, o DELETE dos emprestimos (CASCADE) e o DELETE dos livros.
+ * Tudo roda numa so transacao, entao um REJECT no meio desfaz os blocos
+ * anteriores. Os indices em memoria so sao atualizados depois do commit.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BookDeleteServiceImpl implements BookDeleteService {
+
+	private static final int MAX_IDS_IN_ERROR = 10;
+
+	@Value("${application.books.delete-chunk-size:500}")
+	private int chunkSize;
+
+	private final BookRepository bookRepository;
+	private final LoanRepository loanRepository;
+	private final BookSearchIndex searchIndex;
+	private final BookIsbnCache isbnCache;
+	private final ActiveLoanIndex activeLoans;
+	private final TableChangeCounter changes;
+
+	@Override
+	@Transactional
+	public BookDeleteResultDTO deleteByIds(Collection<Long> ids, LoanPolicy policy) {
+		List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+		distinct.removeIf(Objects::isNull);
+		if (distinct.isEmpty()) {
+			throw new BusinessException("No book ids to delete.");
+		}
+		if (distinct.size() > MAX_IDS) {
+			throw new BusinessException("Too many ids, max is " + MAX_IDS);
+		}
+		BookDeleteResultDTO result = new BookDeleteResultDTO();
+		for (int from = 0; from < distinct.size(); from += chunkSize) {
+			deleteChunk(distinct.subList(from, Math.min(from + chunkSize, distinct.size())), policy, result);
+		}
+		return changed(result);
+	}
+
+	@Override
+	@Transactional
+	public BookDeleteResultDTO deleteByFilter(Book filter, LoanPolicy policy) {
+		if (filter.getTitle() == null && filter.getAuthor() == null && filter.getIsbn() == null) {
+			throw new BusinessException("A filter (title, author or isbn) is required.");
+		}
+		BookDeleteResultDTO result = new BookDeleteResultDTO();
+		long after = 0L;
+		List<Long> chunk;
+		do {
+			chunk = bookRepository.findIdsByFilterAfter(filter.getTitle(), filter.getAuthor(), filter.getIsbn(),
+					after, PageRequest.of(0, chunkSize));
+			if (!chunk.isEmpty()) {
+				deleteChunk(chunk, policy, result);
+				after = chunk.get(chunk.size() - 1);
+			}
+		} while (chunk.size() == chunkSize);
+		return changed(result);
+	}
+
+	private void deleteChunk(List<Long> ids, LoanPolicy policy, BookDeleteResultDTO result) {
+		List<Long> loaned = loanRepository.findLoanedBookIdsIn(ids);
+		if (!loaned.isEmpty()) {
+			if (policy != LoanPolicy.CASCADE) {
+				throw new BusinessException("Books with loans cannot be deleted: "
+						+ loaned.subList(0, Math.min(loaned.size(), MAX_IDS_IN_ERROR))
+						+ (loaned.size() > MAX_IDS_IN_ERROR ? " and " + (loaned.size() - MAX_IDS_IN_ERROR) + " more" : ""));
+			}
+			result.setLoans(result.getLoans() + loanRepository.bulkDeleteByBookIds(loaned));
+		}
+		result.setBooks(result.getBooks() + bookRepository.bulkDeleteByIds(ids));
+
+		Collection<Long> deleted = new HashSet<>(ids);
+		TransactionCallbacks.afterCommit(() -> {
+			deleted.forEach(searchIndex::remove);
+			isbnCache.invalidateIds(deleted);
+			loaned.forEach(activeLoans::markReturned);
+		});
+	}
+
+	private BookDeleteResultDTO changed(BookDeleteResultDTO result) {
+		if (result.getBooks() > 0) {
+			changes.booksChanged();
+		}
+		if (result.getLoans() > 0) {
+			changes.loansChanged();
+		}
+		log.info("bulk delete removed {} books and {} loans", result.getBooks(), result.getLoans());
+		return result;
+	}
+}
@@ -0,0 +1,230 @@
+package com.luiz.libraryapi.service.impl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.luiz.libraryapi.api.dto.BookDTO;
+import com.luiz.libraryapi.api.dto.BookImportResultDTO;
+import com.luiz.libraryapi.exception.BusinessException;
+import com.luiz.libraryapi.model.entity.Book;
+import com.luiz.libraryapi.service.BookImportService;
+import com.luiz.libraryapi.service.BookService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Le o arquivo linha a linha e grava em blocos de {@link #CHUNK_SIZE}, cada
+ * bloco na sua propria transacao (via {@link BookService#saveAll}). Como este
+ * servico nao e transacional, o contexto de persistencia termina junto com
+ * cada bloco e a memoria usada nao cresce com o tamanho do arquivo.
+ */
+@Service
+@Slf4j
+public class BookImportServiceImpl implements BookImportService {
+
+	public static final int CHUNK_SIZE = 500;
+
+	private final BookService bookService;
+	private final Validator validator;
+	private final ObjectReader jsonReader;
+
+	public BookImportServiceImpl(BookService bookService) {
+		this(bookService, Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper());
+	}
+
+	@Autowired
+	public BookImportServiceImpl(BookService bookService, Validator validator, ObjectMapper objectMapper) {
+		this.bookService = bookService;
+		this.validator = validator;
+		this.jsonReader = objectMapper.readerFor(BookDTO.class);
+	}
+
+	@Override
+	public BookImportResultDTO importCsv(InputStream input) {
+		return importLines(input, new CsvLineParser());
+	}
+
+	@Override
+	public BookImportResultDTO importNdjson(InputStream input) {
+		return importLines(input, line -> {
+			try {
+				return jsonReader.readValue(line);
+			} catch (JsonProcessingException e) {
+				throw new BusinessException("invalid json: " + e.getOriginalMessage());
+			}
+		});
+	}
+
+	private BookImportResultDTO importLines(InputStream input, LineParser parser) {
+		BookImportResultDTO result = new BookImportResultDTO();
+		List<Book> chunk = new ArrayList<>(CHUNK_SIZE);
+		Set<String> chunkIsbns = new HashSet<>();
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+			long lineNumber = 0;
+			String line;
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+				if (line.isBlank() || parser.isHeader(line)) {
+					continue;
+				}
+				result.setRead(result.getRead() + 1);
+				BookDTO dto;
+				try {
+					dto = parser.parse(line);
+				} catch (BusinessException e) {
+					reject(result, lineNumber, e.getMessage());
+					continue;
+				}
+				Set<ConstraintViolation<BookDTO>> violations = validator.validate(dto);
+				if (!violations.isEmpty()) {
+					reject(result, lineNumber, violations.stream()
+							.map(v -> v.getPropertyPath() + " " + v.getMessage())
+							.sorted()
+							.collect(Collectors.joining(", ")));
+					continue;
+				}
+				if (!chunkIsbns.add(dto.getIsbn())) {
+					result.setDuplicated(result.getDuplicated() + 1);
+					continue;
+				}
+				chunk.add(Book.builder().title(dto.getTitle()).author(dto.getAuthor()).isbn(dto.getIsbn()).build());
+				if (chunk.size() == CHUNK_SIZE) {
+					flush(chunk, result);
+					chunk = new ArrayList<>(CHUNK_SIZE);
+					chunkIsbns.clear();
+				}
+			}
+			flush(chunk, result);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		log.info("book import finished: {} read, {} imported, {} duplicated, {} invalid",
+				result.getRead(), result.getImported(), result.getDuplicated(), result.getInvalid());
+		return result;
+	}
+
+	private void flush(List<Book> chunk, BookImportResultDTO result) {
+		if (chunk.isEmpty()) {
+			return;
+		}
+		int saved = bookService.saveAll(chunk).size();
+		result.setImported(result.getImported() + saved);
+		result.setDuplicated(result.getDuplicated() + chunk.size() - saved);
+		log.info("book import progress: {} read, {} imported", result.getRead(), result.getImported());
+	}
+
+	private static void reject(BookImportResultDTO result, long line, String message) {
+		result.setInvalid(result.getInvalid() + 1);
+		result.addError(line, message);
+	}
+
+	private interface LineParser {
+
+		BookDTO parse(String line);
+
+		default boolean isHeader(String line) {
+			return false;
+		}
+	}
+
+	/**
+	 * CSV simples (RFC 4180 sem quebras de linha dentro dos campos). A primeira
+	 * linha e o cabecalho e define a posicao de cada coluna.
+	 */
+	private static class CsvLineParser implements LineParser {
+
+		private int title = -1;
+		private int author = -1;
+		private int isbn = -1;
+		private boolean headerRead;
+
+		@Override
+		public boolean isHeader(String line) {
+			if (headerRead) {
+				return false;
+			}
+			List<String> columns = split(line);
+			for (int i = 0; i < columns.size(); i++) {
+				switch (columns.get(i).trim().toLowerCase()) {
+				case "title": title = i; break;
+				case "author": author = i; break;
+				case "isbn": isbn = i; break;
+				default: break;
+				}
+			}
+			if (title < 0 || author < 0 || isbn < 0) {
+				throw new BusinessException("CSV header must have title, author and isbn columns");
+			}
+			headerRead = true;
+			return true;
+		}
+
+		@Override
+		public BookDTO parse(String line) {
+			List<String> fields = split(line);
+			return BookDTO.builder()
+					.title(field(fields, title))
+					.author(field(fields, author))
+					.isbn(field(fields, isbn))
+					.build();
+		}
+
+		private static String field(List<String> fields, int index) {
+			if (index >= fields.size()) {
+				return null;
+			}
+			String value = fields.get(index).trim();
+			return value.isEmpty() ? null : value;
+		}
+
+		static List<String> split(String line) {
+			List<String> fields = new ArrayList<>();
+			StringBuilder current = new StringBuilder();
+			boolean quoted = false;
+			for (int i = 0; i < line.length(); i++) {
+				char c = line.charAt(i);
+				if (quoted) {
+					if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+						current.append('"');
+						i++;
+					} else if (c == '"') {
+						quoted = false;
+					} else {
+						current.append(c);
+					}
+				} else if (c == '"') {
+					quoted = true;
+				} else if (c == ',') {
+					fields.add(current.toString());
+					current.setLength(0);
+				} else {
+					current.append(c);
+				}
+			}
+			if (quoted) {
+				throw new BusinessException("unterminated quoted field");
+			}
+			fields.add(current.toString());
+			return fields;
+		}
+	}
+}
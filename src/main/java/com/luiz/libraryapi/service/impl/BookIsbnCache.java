@@ -0,0 +1,176 @@
+package com.luiz.libraryapi.service.impl;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.luiz.libraryapi.model.entity.Book;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Cache de livros por ISBN na frente de BookRepository.findByIsbn/existsByIsbn.
+ *
+ * Limitado por tamanho (admissao W-TinyLFU do Caffeine) e por tempo. Guarda
+ * entradas positivas (o livro) e negativas (Optional vazio, com validade menor).
+ * Os valores sao copias sem a lista de emprestimos, e cada leitura devolve uma
+ * nova copia, para que nenhum chamador altere a instancia compartilhada.
+ * Acertos, falhas e despejos aparecem no actuator como "cache.*" com
+ * cache=books.isbn.
+ *
+ * Um mapa id -> ISBN ao lado do cache deixa invalidar um livro so pelo id
+ * (patch, delete) sem varrer o cache inteiro.
+ */
+@Component
+public class BookIsbnCache implements MeterBinder {
+
+	public static final String NAME = "books.isbn";
+
+	private final Cache<String, Optional<Book>> cache;
+	private final Map<Long, String> isbnById = new ConcurrentHashMap<>();
+
+	public BookIsbnCache() {
+		this(10_000, 600, 30);
+	}
+
+	@Autowired
+	public BookIsbnCache(
+			@Value("${application.isbn-cache.max-size:10000}") long maxSize,
+			@Value("${application.isbn-cache.ttl-seconds:600}") long ttlSeconds,
+			@Value("${application.isbn-cache.negative-ttl-seconds:30}") long negativeTtlSeconds) {
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfter(new PositiveNegativeExpiry(ttlSeconds, negativeTtlSeconds))
+				.evictionListener((String isbn, Optional<Book> value, RemovalCause cause) -> forget(isbn, value))
+				.recordStats()
+				.build();
+	}
+
+	public Optional<Book> get(String isbn, Function<String, Optional<Book>> loader) {
+		Optional<Book> value = cache.get(isbn, key -> {
+			Optional<Book> loaded = loader.apply(key).map(BookIsbnCache::copy);
+			loaded.ifPresent(book -> remember(key, book));
+			return loaded;
+		});
+		return value.map(BookIsbnCache::copy);
+	}
+
+	/**
+	 * Entrada ja em cache para o ISBN, ou null se nao ha nenhuma (positiva ou negativa).
+	 */
+	public Optional<Book> getIfPresent(String isbn) {
+		Optional<Book> value = cache.getIfPresent(isbn);
+		return value == null ? null : value.map(BookIsbnCache::copy);
+	}
+
+	public void put(Book book) {
+		if (book != null && book.getIsbn() != null) {
+			// o cache antes do mapa: se o despejo da entrada antiga vier no
+			// meio, o mapa ainda termina apontando para o ISBN em cache
+			cache.put(book.getIsbn(), Optional.of(copy(book)));
+			remember(book.getIsbn(), book);
+		}
+	}
+
+	/**
+	 * Remove a entrada do ISBN do livro e a do ISBN guardado para o mesmo id
+	 * (caso o ISBN tenha mudado desde que foi guardado, ou so o id seja conhecido).
+	 */
+	public void invalidate(Book book) {
+		if (book == null) {
+			return;
+		}
+		if (book.getIsbn() != null) {
+			cache.invalidate(book.getIsbn());
+		}
+		if (book.getId() != null) {
+			String cachedIsbn = isbnById.remove(book.getId());
+			if (cachedIsbn != null) {
+				cache.invalidate(cachedIsbn);
+			}
+		}
+	}
+
+	/**
+	 * Remove, numa unica passada, as entradas de todos os livros com os ids informados.
+	 */
+	public void invalidateIds(Collection<Long> bookIds) {
+		if (!bookIds.isEmpty()) {
+			cache.asMap().values().removeIf(value -> value.isPresent() && bookIds.contains(value.get().getId()));
+			isbnById.keySet().removeAll(bookIds);
+		}
+	}
+
+	public void invalidateAll() {
+		cache.invalidateAll();
+		isbnById.clear();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		CaffeineCacheMetrics.monitor(registry, cache, NAME);
+	}
+
+	private void remember(String isbn, Book book) {
+		if (book.getId() != null) {
+			isbnById.put(book.getId(), isbn);
+		}
+	}
+
+	private void forget(String isbn, Optional<Book> value) {
+		if (value != null && value.isPresent() && value.get().getId() != null) {
+			isbnById.remove(value.get().getId(), isbn);
+		}
+	}
+
+	private static Book copy(Book book) {
+		return Book.builder()
+				.id(book.getId())
+				.title(book.getTitle())
+				.author(book.getAuthor())
+				.isbn(book.getIsbn())
+				.version(book.getVersion())
+				.build();
+	}
+
+	private static class PositiveNegativeExpiry implements Expiry<String, Optional<Book>> {
+
+		private final long ttlNanos;
+		private final long negativeTtlNanos;
+
+		PositiveNegativeExpiry(long ttlSeconds, long negativeTtlSeconds) {
+			this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+			this.negativeTtlNanos = TimeUnit.SECONDS.toNanos(negativeTtlSeconds);
+		}
+
+		@Override
+		public long expireAfterCreate(String key, Optional<Book> value, long currentTime) {
+			return value.isPresent() ? ttlNanos : negativeTtlNanos;
+		}
+
+		@Override
+		public long expireAfterUpdate(String key, Optional<Book> value, long currentTime,
+				long currentDuration) {
+			return expireAfterCreate(key, value, currentTime);
+		}
+
+		@Override
+		public long expireAfterRead(String key, Optional<Book> value, long currentTime,
+				long currentDuration) {
+			return currentDuration;
+		}
+	}
+}
@@ -0,0 +1,267 @@
+package com.luiz.libraryapi.service.impl;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.stereotype.Component;
+
+import com.luiz.libraryapi.model.entity.Book;
+
+/**
+ * Indice invertido de trigramas sobre Book.title e Book.author, mantido em
+ * memoria para responder buscas "contem, ignorando maiusculas" sem varrer a
+ * tabela. Cada trigrama aponta para uma lista ordenada de ids (int[]); a
+ * busca intersecta as listas dos trigramas do termo e confirma o resultado
+ * no texto guardado de cada livro.
+ *
+ * Termos com menos de 3 caracteres nao podem ser respondidos pelo indice;
+ * nesses casos {@link #search(String, String)} devolve null e o chamador
+ * deve usar a consulta no banco.
+ */
+@Component
+public class BookSearchIndex {
+
+	private static final int GRAM = 3;
+	private static final long TITLE = 0L;
+	private static final long AUTHOR = 1L;
+
+	private final Map<Long, Postings> postings = new HashMap<>();
+	private final Map<Integer, String[]> documents = new HashMap<>();
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private volatile boolean ready;
+
+	public boolean isReady() {
+		return ready;
+	}
+
+	/**
+	 * Marca o indice como completo; so a partir dai as buscas sao atendidas por ele.
+	 */
+	public void markReady() {
+		ready = true;
+	}
+
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			ready = false;
+			postings.clear();
+			documents.clear();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void put(Book book) {
+		if (book == null || book.getId() == null) {
+			return;
+		}
+		if (book.getId() > Integer.MAX_VALUE) {
+			// ids fora do intervalo int nao cabem nas listas; desliga o indice
+			ready = false;
+			return;
+		}
+		int id = book.getId().intValue();
+		String[] text = { normalize(book.getTitle()), normalize(book.getAuthor()) };
+		lock.writeLock().lock();
+		try {
+			removeLocked(id);
+			documents.put(id, text);
+			index(TITLE, text[0], id);
+			index(AUTHOR, text[1], id);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Reindexa so os campos presentes no mapa ("title"/"author") de um livro ja
+	 * indexado, mantendo o texto guardado dos demais.
+	 */
+	public void patch(Long bookId, Map<String, String> fields) {
+		if (bookId == null || bookId > Integer.MAX_VALUE) {
+			return;
+		}
+		int id = bookId.intValue();
+		lock.writeLock().lock();
+		try {
+			String[] current = documents.get(id);
+			if (current == null) {
+				return;
+			}
+			String[] text = {
+					fields.containsKey("title") ? normalize(fields.get("title")) : current[0],
+					fields.containsKey("author") ? normalize(fields.get("author")) : current[1] };
+			removeLocked(id);
+			documents.put(id, text);
+			index(TITLE, text[0], id);
+			index(AUTHOR, text[1], id);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remove(Long bookId) {
+		if (bookId == null || bookId > Integer.MAX_VALUE) {
+			return;
+		}
+		lock.writeLock().lock();
+		try {
+			removeLocked(bookId.intValue());
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Ids (em ordem crescente) dos livros cujo titulo contem {@code title} e cujo
+	 * autor contem {@code author}; termos nulos ou vazios sao ignorados. Devolve
+	 * null quando o indice nao consegue responder.
+	 */
+	public int[] search(String title, String author) {
+		String titleTerm = normalize(title);
+		String authorTerm = normalize(author);
+		if (!ready || (titleTerm.length() < GRAM && authorTerm.length() < GRAM)) {
+			return null;
+		}
+		lock.readLock().lock();
+		try {
+			int[] candidates = null;
+			if (titleTerm.length() >= GRAM) {
+				candidates = candidates(TITLE, titleTerm, candidates);
+			}
+			if (authorTerm.length() >= GRAM) {
+				candidates = candidates(AUTHOR, authorTerm, candidates);
+			}
+			int count = 0;
+			int[] result = new int[candidates.length];
+			for (int id : candidates) {
+				String[] text = documents.get(id);
+				if (text != null && text[0].contains(titleTerm) && text[1].contains(authorTerm)) {
+					result[count++] = id;
+				}
+			}
+			return Arrays.copyOf(result, count);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return documents.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private int[] candidates(long field, String term, int[] current) {
+		int[] result = current;
+		for (int i = 0; i + GRAM <= term.length(); i++) {
+			Postings list = postings.get(key(field, term, i));
+			if (list == null) {
+				return new int[0];
+			}
+			result = result == null ? list.toArray() : list.intersect(result);
+			if (result.length == 0) {
+				return result;
+			}
+		}
+		return result;
+	}
+
+	private void index(long field, String text, int id) {
+		for (int i = 0; i + GRAM <= text.length(); i++) {
+			postings.computeIfAbsent(key(field, text, i), k -> new Postings()).add(id);
+		}
+	}
+
+	private void removeLocked(int id) {
+		String[] text = documents.remove(id);
+		if (text == null) {
+			return;
+		}
+		unindex(TITLE, text[0], id);
+		unindex(AUTHOR, text[1], id);
+	}
+
+	private void unindex(long field, String text, int id) {
+		for (int i = 0; i + GRAM <= text.length(); i++) {
+			long key = key(field, text, i);
+			Postings list = postings.get(key);
+			if (list != null && list.remove(id) && list.size == 0) {
+				postings.remove(key);
+			}
+		}
+	}
+
+	private static long key(long field, String text, int start) {
+		return field << 48
+				| (long) text.charAt(start) << 32
+				| (long) text.charAt(start + 1) << 16
+				| text.charAt(start + 2);
+	}
+
+	private static String normalize(String value) {
+		return value == null ? "" : value.toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * Lista ordenada e sem repeticao de ids de livros.
+	 */
+	static final class Postings {
+
+		int[] ids = new int[4];
+		int size;
+
+		void add(int id) {
+			int pos = Arrays.binarySearch(ids, 0, size, id);
+			if (pos >= 0) {
+				return;
+			}
+			pos = -pos - 1;
+			if (size == ids.length) {
+				ids = Arrays.copyOf(ids, size * 2);
+			}
+			System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+			ids[pos] = id;
+			size++;
+		}
+
+		boolean remove(int id) {
+			int pos = Arrays.binarySearch(ids, 0, size, id);
+			if (pos < 0) {
+				return false;
+			}
+			System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+			size--;
+			return true;
+		}
+
+		int[] toArray() {
+			return Arrays.copyOf(ids, size);
+		}
+
+		int[] intersect(int[] other) {
+			int[] result = new int[Math.min(size, other.length)];
+			int i = 0, j = 0, count = 0;
+			while (i < size && j < other.length) {
+				if (ids[i] < other[j]) {
+					i++;
+				} else if (ids[i] > other[j]) {
+					j++;
+				} else {
+					result[count++] = ids[i];
+					i++;
+					j++;
+				}
+			}
+			return Arrays.copyOf(result, count);
+		}
+	}
+}
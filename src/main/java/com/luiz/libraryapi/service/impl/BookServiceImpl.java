@@ -1,36 +1,145 @@
 package com.luiz.libraryapi.service.impl;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.ExampleMatcher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.luiz.libraryapi.exception.BusinessException;
 import com.luiz.libraryapi.model.entity.Book;
+import com.luiz.libraryapi.model.projection.BookSummary;
 import com.luiz.libraryapi.model.repository.BookRepository;
 import com.luiz.libraryapi.service.BookService;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
 @Service
+@Slf4j
 public class BookServiceImpl implements BookService {
 
+	private static final int INDEX_CHUNK = 1000;
+
 	private BookRepository repository;
-	
+	private ApproximateCountCache countCache;
+	private BookSearchIndex searchIndex;
+	private BookIsbnCache isbnCache;
+	private TableChangeCounter changes;
+	private Counter booksCreated;
+	private Counter booksRejected;
+
 	public BookServiceImpl (BookRepository repository) {
+		this(repository, new ApproximateCountCache(), new BookSearchIndex(), new BookIsbnCache(), new TableChangeCounter(),
+				new SimpleMeterRegistry());
+	}
+	
+	@Autowired
+	public BookServiceImpl (BookRepository repository, ApproximateCountCache countCache, BookSearchIndex searchIndex,
+			BookIsbnCache isbnCache, TableChangeCounter changes, MeterRegistry registry) {
 		this.repository = repository;
+		this.countCache = countCache;
+		this.searchIndex = searchIndex;
+		this.isbnCache = isbnCache;
+		this.changes = changes;
+		this.booksCreated = registry.counter("library.books.created");
+		this.booksRejected = registry.counter("library.books.rejected", "reason", "isbn_already_registered");
+	}
+
+	/**
+	 * Carrega o indice de titulo/autor na subida da aplicacao, em blocos
+	 * ordenados por id para nao trazer o catalogo inteiro de uma vez.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuildSearchIndex() {
+		searchIndex.clear();
+		long after = 0L;
+		List<Book> chunk;
+		do {
+			chunk = repository.findByFilterAfter(null, null, null, after, PageRequest.of(0, INDEX_CHUNK));
+			chunk.forEach(searchIndex::put);
+			if (!chunk.isEmpty()) {
+				after = chunk.get(chunk.size() - 1).getId();
+			}
+		} while (chunk.size() == INDEX_CHUNK);
+		searchIndex.markReady();
+		log.info("book search index loaded with {} books", searchIndex.size());
 	}
 
 	@Override
 	public Book save(Book book) {
-		if (repository.existsByIsbn(book.getIsbn())) {
+		Optional<Book> cached = isbnCache.getIfPresent(book.getIsbn());
+		boolean exists = cached != null ? cached.isPresent() : repository.existsByIsbn(book.getIsbn());
+		if (exists) {
+			booksRejected.increment();
 			throw new BusinessException ("Isbn ja cadastrado.");
 		}
-		return repository.save(book);
+		Book saved = repository.save(book);
+		TransactionCallbacks.afterCommit(() -> {
+			searchIndex.put(saved);
+			isbnCache.put(saved);
+		});
+		changes.booksChanged();
+		booksCreated.increment();
+		return saved;
+	}
+
+	@Override
+	@Transactional
+	public List<Book> saveAll(List<Book> books) {
+		if (books.isEmpty()) {
+			return books;
+		}
+		Set<String> isbns = new HashSet<>();
+		books.forEach(book -> isbns.add(book.getIsbn()));
+		Set<String> existing = new HashSet<>(repository.findExistingIsbns(isbns));
+		List<Book> toSave = new ArrayList<>(books.size());
+		for (Book book : books) {
+			if (existing.add(book.getIsbn())) {
+				toSave.add(book);
+			}
+		}
+		List<Book> saved = repository.saveAll(toSave);
+		// o INSERT em lote so roda no flush do commit e pode falhar no
+		// ux_book_isbn; ate la os livros nao entram nos caches
+		TransactionCallbacks.afterCommit(() -> saved.forEach(book -> {
+			searchIndex.put(book);
+			isbnCache.put(book);
+		}));
+		if (!saved.isEmpty()) {
+			changes.booksChanged();
+		}
+		booksCreated.increment(saved.size());
+		booksRejected.increment(books.size() - toSave.size());
+		return saved;
 	}
 
 	@Override
+	@Transactional(readOnly = true)
 	public Optional<Book> getById(Long id) {
 		return this.repository.findById(id);
 	}
@@ -41,6 +150,9 @@ public class BookServiceImpl implements BookService {
 			throw new IllegalArgumentException("Book id cant be null.");
 		}
 		this.repository.delete(book);
+		searchIndex.remove(book.getId());
+		isbnCache.invalidate(book);
+		changes.booksChanged();
 	}
 
 	@Override
@@ -48,24 +160,148 @@ public class BookServiceImpl implements BookService {
 		if(book == null || book.getId()== null) {
 			throw new IllegalArgumentException("Book id cant be null.");
 		}
-		return this.repository.save(book);
+		Book updated = this.repository.save(book);
+		searchIndex.put(updated);
+		isbnCache.invalidate(book);
+		isbnCache.invalidate(updated);
+		changes.booksChanged();
+		return updated;
+	}
+
+	@Override
+	@Transactional
+	public PatchOutcome patch(Long id, long expectedVersion, Map<String, String> fields) {
+		if (fields.isEmpty()) {
+			throw new BusinessException("Nothing to patch.");
+		}
+		for (Map.Entry<String, String> field : fields.entrySet()) {
+			if (!PATCHABLE_FIELDS.contains(field.getKey())) {
+				throw new BusinessException("Field cannot be patched: " + field.getKey());
+			}
+			if (field.getValue() == null || field.getValue().isEmpty()) {
+				throw new BusinessException("Field cannot be empty: " + field.getKey());
+			}
+		}
+		if (repository.patch(id, expectedVersion, fields) == 0) {
+			return repository.findVersionById(id).isPresent() ? PatchOutcome.VERSION_MISMATCH : PatchOutcome.NOT_FOUND;
+		}
+		// como no save: invalidar antes do commit deixaria um getBookByIsbn
+		// concorrente recolocar a linha antiga no cache
+		TransactionCallbacks.afterCommit(() -> {
+			searchIndex.patch(id, fields);
+			isbnCache.invalidate(Book.builder().id(id).build());
+		});
+		changes.booksChanged();
+		return PatchOutcome.PATCHED;
 	}
 
 	@Override
+	public Optional<Long> getVersion(Long id) {
+		return repository.findVersionById(id);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
 	public Page<Book> find(Book filter, Pageable pageRequest) {
-		Example<Book> example = Example.of(filter , ExampleMatcher
+		if (canUseSearchIndex(filter, pageRequest)) {
+			int[] ids = searchIndex.search(filter.getTitle(), filter.getAuthor());
+			if (ids != null) {
+				return pageOf(ids, pageRequest);
+			}
+		}
+		return repository.findAll(example(filter) , pageRequest);
+	}
+
+	private boolean canUseSearchIndex(Book filter, Pageable pageRequest) {
+		Sort sort = pageRequest.getSort();
+		boolean sortedById = sort.isUnsorted()
+				|| sort.stream().allMatch(order -> order.getProperty().equals("id") && order.isAscending());
+		return filter.getId() == null && filter.getIsbn() == null && sortedById;
+	}
+
+	private Page<Book> pageOf(int[] ids, Pageable pageRequest) {
+		if (pageRequest.isUnpaged()) {
+			pageRequest = PageRequest.of(0, Math.max(ids.length, 1));
+		}
+		int from = (int) Math.min(pageRequest.getOffset(), ids.length);
+		int to = Math.min(from + pageRequest.getPageSize(), ids.length);
+		List<Long> pageIds = new ArrayList<>(to - from);
+		Arrays.stream(ids, from, to).forEach(id -> pageIds.add((long) id));
+		List<Book> content = pageIds.isEmpty() ? new ArrayList<>() : new ArrayList<>(repository.findAllById(pageIds));
+		content.sort(Comparator.comparing(Book::getId));
+		return new PageImpl<Book>(content, pageRequest, ids.length);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public List<Book> findAfter(Book filter, Long after, int limit) {
+		return repository.findByFilterAfter(filter.getTitle(), filter.getAuthor(), filter.getIsbn(),
+				after, PageRequest.of(0, limit));
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public Slice<Book> findSlice(Book filter, Pageable pageRequest) {
+		return repository.findSliceByFilter(filter.getTitle(), filter.getAuthor(), filter.getIsbn(), pageRequest);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public long approximateCount(Book filter) {
+		// o Example ignora maiusculas, entao "Azul" e "azul" dividem o total
+		List<String> key = Arrays.asList("books", lowerCase(filter.getTitle()), lowerCase(filter.getAuthor()),
+				lowerCase(filter.getIsbn()));
+		Example<Book> example = example(filter);
+		return countCache.get(key, () -> repository.count(example));
+	}
+
+	private static String lowerCase(String value) {
+		return value == null ? null : value.toLowerCase();
+	}
+
+	private Example<Book> example(Book filter) {
+		return Example.of(filter , ExampleMatcher
 				.matching()
 				.withIgnoreCase()
 				.withIgnoreNullValues()
 				.withStringMatcher(ExampleMatcher.StringMatcher.CONTAINING) 
 				);
-				
-		return repository.findAll(example , pageRequest);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public void forEachBook(Consumer<BookSummary> consumer) {
+		try (Stream<BookSummary> books = repository.streamAllSummaries()) {
+			books.forEach(consumer);
+		}
 	}
 
 	@Override
 	public Optional<Book> getBookByIsbn(String isbn) {
-			return repository.findByIsbn(isbn);
+			return isbnCache.get(isbn, repository::findByIsbn);
+	}
+
+	@Override
+	public Map<String, Book> getBooksByIsbn(Collection<String> isbns) {
+		Map<String, Book> result = new HashMap<>();
+		Set<String> missing = new LinkedHashSet<>();
+		for (String isbn : isbns) {
+			Optional<Book> cached = isbn == null ? null : isbnCache.getIfPresent(isbn);
+			if (cached == null) {
+				if (isbn != null) {
+					missing.add(isbn);
+				}
+			} else {
+				cached.ifPresent(book -> result.put(isbn, book));
+			}
+		}
+		if (!missing.isEmpty()) {
+			for (Book book : repository.findByIsbnIn(missing)) {
+				isbnCache.put(book);
+				result.put(book.getIsbn(), book);
+			}
+		}
+		return result;
 	}
 	
 	
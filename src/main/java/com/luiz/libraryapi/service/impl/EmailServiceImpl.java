@@ -37,4 +37,15 @@ public class EmailServiceImpl implements EmailService {
 		
 	}
 
+	@Override
+	public void sendMail(String mensage, String mail) {
+		SimpleMailMessage mailMessage = new SimpleMailMessage();
+		mailMessage.setFrom(remetent);
+		mailMessage.setSubject("Livro com empréstimo atrasado");
+		mailMessage.setText(mensage);
+		mailMessage.setTo(mail);
+		
+		javaMailSender.send(mailMessage);
+	}
+
 }
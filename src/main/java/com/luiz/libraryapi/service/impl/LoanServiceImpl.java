@@ -1,61 +1,270 @@
 package com.luiz.libraryapi.service.impl;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.luiz.libraryapi.api.dto.LoanFilterDTO;
 import com.luiz.libraryapi.exception.BusinessException;
 import com.luiz.libraryapi.model.entity.Book;
 import com.luiz.libraryapi.model.entity.Loan;
+import com.luiz.libraryapi.model.projection.LoanSummary;
 import com.luiz.libraryapi.model.repository.LoanRepository;
 import com.luiz.libraryapi.service.LoanService;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+@Service
+@Slf4j
 public class LoanServiceImpl implements LoanService{
 
 	private LoanRepository repository;
+	private ApproximateCountCache countCache;
+	private ActiveLoanIndex activeLoans;
+	private TableChangeCounter changes;
+	private Counter loansCreated;
+	private Counter loansRejected;
 
 	    public LoanServiceImpl(LoanRepository repository) {
+	        this(repository, new ApproximateCountCache(), new ActiveLoanIndex(), new TableChangeCounter(),
+	        		new SimpleMeterRegistry());
+	    }
+
+	    @Autowired
+	    public LoanServiceImpl(LoanRepository repository, ApproximateCountCache countCache, ActiveLoanIndex activeLoans,
+	    		TableChangeCounter changes, MeterRegistry registry) {
 	        this.repository = repository;
+	        this.countCache = countCache;
+	        this.activeLoans = activeLoans;
+	        this.changes = changes;
+	        this.loansCreated = registry.counter("library.loans.created");
+	        this.loansRejected = registry.counter("library.loans.rejected", "reason", "book_already_loaned");
+	    }
+
+	    @EventListener(ApplicationReadyEvent.class)
+	    public void rebuildActiveLoanIndex() {
+	        List<Long> bookIds = repository.findActiveLoanBookIds();
+	        activeLoans.rebuild(bookIds);
+	        log.info("active loan index loaded with {} loaned books", bookIds.size());
 	    }
 
 	    @Override
 	    public Loan save( Loan loan ) {
-	        if( repository.existsByBookAndNotReturned(loan.getBook()) ){
+	        Long bookId = loan.getBook() == null ? null : loan.getBook().getId();
+	        if ( bookId == null || !activeLoans.isReady() ) {
+	            if( repository.existsByBookAndNotReturned(loan.getBook()) ){
+	                loansRejected.increment();
+	                throw new BusinessException("Book already loaned");
+	            }
+	            Loan saved = repository.save(loan);
+	            activeLoans.markLoaned(bookId);
+	            changes.loansChanged();
+	            loansCreated.increment();
+	            return saved;
+	        }
+	        if ( !activeLoans.tryMarkLoaned(bookId) ) {
+	            loansRejected.increment();
 	            throw new BusinessException("Book already loaned");
 	        }
-	        return repository.save(loan);
+	        Loan saved = TransactionCallbacks.undoOnRollback(() -> repository.save(loan),
+	                () -> activeLoans.markReturned(bookId));
+	        changes.loansChanged();
+	        loansCreated.increment();
+	        return saved;
+	    }
+
+	    @Override
+	    @Transactional
+	    public List<Loan> saveAll(List<Loan> loans) {
+	        Set<Long> loaned = new HashSet<>();
+	        if ( !activeLoans.isReady() ) {
+	            Set<Long> bookIds = new HashSet<>();
+	            loans.forEach(loan -> bookIds.add(loan.getBook().getId()));
+	            loaned.addAll(repository.findActiveLoanBookIdsIn(bookIds));
+	        }
+	        List<Loan> result = new ArrayList<>(loans.size());
+	        List<Loan> accepted = new ArrayList<>();
+	        List<Long> marked = new ArrayList<>();
+	        for (Loan loan : loans) {
+	            Long bookId = loan.getBook().getId();
+	            boolean free = activeLoans.isReady() ? activeLoans.tryMarkLoaned(bookId) : loaned.add(bookId);
+	            if ( free ) {
+	                marked.add(bookId);
+	                accepted.add(loan);
+	                result.add(loan);
+	            } else {
+	                result.add(null);
+	            }
+	        }
+	        // os INSERTs so saem no flush do commit; se ele falhar, os bits
+	        // marcados acima voltam a ficar livres
+	        TransactionCallbacks.undoOnRollback(() -> repository.saveAll(accepted),
+	                () -> marked.forEach(activeLoans::markReturned));
+	        if ( !activeLoans.isReady() ) {
+	            TransactionCallbacks.afterCommit(() -> marked.forEach(activeLoans::markLoaned));
+	        }
+	        if ( !accepted.isEmpty() ) {
+	            changes.loansChanged();
+	        }
+	        loansCreated.increment(accepted.size());
+	        loansRejected.increment(loans.size() - accepted.size());
+	        return result;
 	    }
 
 	    @Override
+	    @Transactional(readOnly = true)
 	    public Optional<Loan> getById(Long id) {
 	        return repository.findById(id);
 	    }
 
 	    @Override
 	    public Loan update(Loan loan) {
-	        return repository.save(loan);
+	        Loan updated = repository.save(loan);
+	        if ( loan.getBook() != null ) {
+	            if ( Boolean.TRUE.equals(loan.getReturned()) ) {
+	                activeLoans.markReturned(loan.getBook().getId());
+	            } else {
+	                activeLoans.markLoaned(loan.getBook().getId());
+	            }
+	        }
+	        changes.loansChanged();
+	        return updated;
 	    }
 
 	    @Override
+	    @Transactional
+	    public ReturnOutcome returnLoan(Long id) {
+	        if ( repository.markReturned(id) == 0 ) {
+	            return repository.existsById(id) ? ReturnOutcome.ALREADY_RETURNED : ReturnOutcome.NOT_FOUND;
+	        }
+	        // o UPDATE nao devolve o livro; so o indice precisa dele, e so
+	        // depois do commit, senao um rollback deixaria o livro livre
+	        if ( activeLoans.isReady() ) {
+	            TransactionCallbacks.afterCommit(() -> repository.findBookIdById(id).ifPresent(activeLoans::markReturned));
+	        }
+	        changes.loansChanged();
+	        return ReturnOutcome.RETURNED;
+	    }
+
+	    @Override
+	    @Transactional(readOnly = true)
 	    public Page<Loan> find(LoanFilterDTO filterDTO, Pageable pageable) {
 	        return repository.findByBookIsbnOrCustomer( filterDTO.getIsbn(), filterDTO.getCustomer(), pageable );
 	    }
 
 	    @Override
+	    @Transactional(readOnly = true)
 	    public Page<Loan> getLoansByBook(Book book, Pageable pageable) {
 	        return repository.findByBook(book, pageable);
 	    }
+
+	    @Override
+	    @Transactional(readOnly = true)
+	    public List<Loan> findAfter(LoanFilterDTO filterDTO, Long after, int limit) {
+	        return repository.findByBookIsbnOrCustomerAfter(
+	        		filterDTO.getIsbn(), filterDTO.getCustomer(), after, PageRequest.of(0, limit));
+	    }
+
+	    @Override
+	    @Transactional(readOnly = true)
+	    public List<Loan> getLoansByBookAfter(Book book, Long after, int limit) {
+	        return repository.findByBookAfter(book, after, PageRequest.of(0, limit));
+	    }
+
+	    @Override
+	    @Transactional(readOnly = true)
+	    public Slice<Loan> findSlice(LoanFilterDTO filterDTO, Pageable pageable) {
+	        return repository.findSliceByBookIsbnOrCustomer( filterDTO.getIsbn(), filterDTO.getCustomer(), pageable );
+	    }
+
+	    @Override
+	    @Transactional(readOnly = true)
+	    public long approximateCount(LoanFilterDTO filterDTO) {
+	        String isbn = filterDTO.getIsbn();
+	        String customer = filterDTO.getCustomer();
+	        return countCache.get(Arrays.asList("loans", isbn, customer),
+	        		() -> repository.countByBookIsbnOrCustomer(isbn, customer));
+	    }
+
+	    @Override
+	    @Transactional(readOnly = true)
+	    public Slice<Loan> getLoansByBookSlice(Book book, Pageable pageable) {
+	        return repository.findSliceByBook(book, pageable);
+	    }
+
+	    @Override
+	    @Transactional(readOnly = true)
+	    public long approximateCountByBook(Book book) {
+	        return countCache.get(Arrays.asList("loansByBook", book.getId()), () -> repository.countByBook(book));
+	    }
+
+	    @Override
+	    public Map<Long, Boolean> getAvailability(Collection<Long> bookIds) {
+	        if ( activeLoans.isReady() ) {
+	            return activeLoans.availability(bookIds);
+	        }
+	        Set<Long> loaned = bookIds.isEmpty() ? Set.of() : new HashSet<>(repository.findActiveLoanBookIdsIn(bookIds));
+	        Map<Long, Boolean> result = new LinkedHashMap<>();
+	        bookIds.forEach(id -> result.put(id, !loaned.contains(id)));
+	        return result;
+	    }
 	    
 	    @Override
 	    public List<Loan> getAllLateLoans(){
+	    	return repository.findByLoanDateLessThanAndNotReturned(lateLoanDate());
+	    }
+
+	    @Override
+	    @Transactional(readOnly = true)
+	    public void forEachLateLoanEmailChunk(int chunkSize, Consumer<List<String>> consumer) {
+	        try (Stream<String> emails = repository.streamLateLoanEmails(lateLoanDate())) {
+	            List<String> chunk = new ArrayList<>(chunkSize);
+	            emails.forEach(email -> {
+	                chunk.add(email);
+	                if (chunk.size() == chunkSize) {
+	                    consumer.accept(new ArrayList<>(chunk));
+	                    chunk.clear();
+	                }
+	            });
+	            if (!chunk.isEmpty()) {
+	                consumer.accept(chunk);
+	            }
+	        }
+	    }
+
+	    @Override
+	    @Transactional(readOnly = true)
+	    public void forEachLoan(Consumer<LoanSummary> consumer) {
+	        try (Stream<LoanSummary> loans = repository.streamAllSummaries()) {
+	            loans.forEach(consumer);
+	        }
+	    }
+
+	    private static LocalDate lateLoanDate() {
 	    	final Integer loanDays = 4;
-	    	LocalDate threeDaysAgo = LocalDate.now().minusDays(loanDays);
-	    	
-	    	return repository.findByLoanDateLessThanAndNotReturned(threeDaysAgo);
+	    	return LocalDate.now().minusDays(loanDays);
 	    }
 
 	
@@ -0,0 +1,151 @@
+package com.luiz.libraryapi.service.impl;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.luiz.libraryapi.api.dto.MailOutboxStatusDTO;
+import com.luiz.libraryapi.model.entity.MailOutbox;
+import com.luiz.libraryapi.model.entity.MailOutbox.Status;
+import com.luiz.libraryapi.model.repository.MailOutboxRepository;
+import com.luiz.libraryapi.service.LoanService;
+import com.luiz.libraryapi.service.MailOutboxService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+@Service
+@Slf4j
+public class MailOutboxServiceImpl implements MailOutboxService {
+
+	private static final int MAX_ERROR_LENGTH = 500;
+
+	@Value("${application.email.outbox.max-attempts:5}")
+	private int maxAttempts;
+
+	@Value("${application.email.outbox.backoff-seconds:30}")
+	private long backoffSeconds;
+
+	@Value("${application.email.outbox.max-backoff-seconds:3600}")
+	private long maxBackoffSeconds;
+
+	@Value("${application.email.outbox.lease-seconds:300}")
+	private long leaseSeconds;
+
+	private final MailOutboxRepository repository;
+	private final LoanService loanService;
+	private final Counter enqueued;
+	private final Counter exhausted;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	public MailOutboxServiceImpl(MailOutboxRepository repository, LoanService loanService, MeterRegistry registry) {
+		this.repository = repository;
+		this.loanService = loanService;
+		this.enqueued = registry.counter("library.mail_outbox.enqueued");
+		this.exhausted = registry.counter("library.mail_outbox.exhausted");
+	}
+
+	@Override
+	@Transactional
+	public int enqueueLateLoanMails(String message, int chunkSize) {
+		LocalDateTime now = LocalDateTime.now();
+		int[] queued = { 0 };
+		loanService.forEachLateLoanEmailChunk(chunkSize, mails -> {
+			List<MailOutbox> rows = new ArrayList<>(mails.size());
+			for (String mail : mails) {
+				rows.add(MailOutbox.builder().recipient(mail).message(message).status(Status.PENDING)
+						.nextAttemptAt(now).createdAt(now).build());
+			}
+			repository.saveAll(rows);
+			entityManager.flush();
+			entityManager.clear();
+			queued[0] += rows.size();
+		});
+		enqueued.increment(queued[0]);
+		return queued[0];
+	}
+
+	@Override
+	@Transactional
+	public List<MailOutbox> claimBatch(int batchSize) {
+		LocalDateTime now = LocalDateTime.now();
+		List<MailOutbox> batch = repository.findDue(Status.PENDING, now, PageRequest.of(0, batchSize));
+		LocalDateTime leaseUntil = now.plusSeconds(leaseSeconds);
+		batch.forEach(row -> row.setNextAttemptAt(leaseUntil));
+		return batch;
+	}
+
+	@Override
+	@Transactional
+	public void recordResults(Collection<Long> sent, Map<Long, String> failed) {
+		Set<Long> sentIds = new HashSet<>(sent);
+		Set<Long> ids = new HashSet<>(sentIds);
+		ids.addAll(failed.keySet());
+		if (ids.isEmpty()) {
+			return;
+		}
+		LocalDateTime now = LocalDateTime.now();
+		for (MailOutbox row : repository.findAllById(ids)) {
+			if (sentIds.contains(row.getId())) {
+				row.setStatus(Status.SENT);
+				row.setSentAt(now);
+				row.setLastError(null);
+				continue;
+			}
+			row.setAttempts(row.getAttempts() + 1);
+			row.setLastError(truncate(failed.get(row.getId())));
+			if (row.getAttempts() >= maxAttempts) {
+				row.setStatus(Status.FAILED);
+				exhausted.increment();
+				log.warn("giving up on mail {} to {} after {} attempts", row.getId(), row.getRecipient(), row.getAttempts());
+			} else {
+				row.setNextAttemptAt(now.plus(backoff(row.getAttempts())));
+			}
+		}
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public MailOutboxStatusDTO getStatus() {
+		LocalDateTime oldest = repository.findOldestCreatedAt(Status.PENDING);
+		return MailOutboxStatusDTO.builder()
+				.pending(repository.countByStatus(Status.PENDING))
+				.retrying(repository.countByStatusAndAttemptsGreaterThan(Status.PENDING, 0))
+				.failed(repository.countByStatus(Status.FAILED))
+				.sent(repository.countByStatus(Status.SENT))
+				.oldestPendingAt(oldest)
+				.oldestPendingAgeSeconds(oldest == null ? null : Duration.between(oldest, LocalDateTime.now()).getSeconds())
+				.build();
+	}
+
+	/**
+	 * backoff-seconds dobrando a cada tentativa falha, limitado a max-backoff-seconds.
+	 */
+	Duration backoff(int attempts) {
+		long factor = 1L << Math.min(attempts - 1, 30);
+		return Duration.ofSeconds(Math.min(backoffSeconds * factor, maxBackoffSeconds));
+	}
+
+	private static String truncate(String error) {
+		if (error == null || error.length() <= MAX_ERROR_LENGTH) {
+			return error;
+		}
+		return error.substring(0, MAX_ERROR_LENGTH);
+	}
+}
@@ -0,0 +1,44 @@
+package com.luiz.libraryapi.service.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Contadores em memoria de alteracoes nas tabelas book e loan, usados como
+ * ETag fraca das listagens: enquanto o contador nao muda, nenhuma pagina
+ * mudou. Os servicos avisam a cada escrita; dentro de uma transacao o
+ * incremento so acontece depois do commit, para que ninguem guarde dados
+ * antigos com a tag nova.
+ *
+ * O epoch muda a cada subida da aplicacao, entao tags de uma execucao
+ * anterior nunca batem. Como o ActiveLoanIndex, assume uma unica instancia
+ * escrevendo no banco.
+ */
+@Component
+public class TableChangeCounter {
+
+	private final long epoch = System.currentTimeMillis();
+	private final AtomicLong books = new AtomicLong();
+	private final AtomicLong loans = new AtomicLong();
+
+	public long getEpoch() {
+		return epoch;
+	}
+
+	public long getBooks() {
+		return books.get();
+	}
+
+	public long getLoans() {
+		return loans.get();
+	}
+
+	public void booksChanged() {
+		TransactionCallbacks.afterCommit(books::incrementAndGet);
+	}
+
+	public void loansChanged() {
+		TransactionCallbacks.afterCommit(loans::incrementAndGet);
+	}
+}
@@ -0,0 +1,56 @@
+package com.luiz.libraryapi.service.impl;
+
+import java.util.function.Supplier;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Amarra efeitos fora do banco (indices e caches em memoria, contadores) ao
+ * desfecho da transacao corrente. Sem transacao ativa nao ha o que esperar:
+ * afterCommit roda na hora e o undo de undoOnRollback so roda se o proprio
+ * trabalho falhar.
+ */
+final class TransactionCallbacks {
+
+	private TransactionCallbacks() {
+	}
+
+	static void afterCommit(Runnable action) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			action.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				action.run();
+			}
+		});
+	}
+
+	/**
+	 * Roda o trabalho e, se a transacao corrente nao chegar ao commit, roda o
+	 * undo uma unica vez. Cobre tambem as falhas do flush no commit, que
+	 * acontecem depois que o metodo ja retornou.
+	 */
+	static <T> T undoOnRollback(Supplier<T> work, Runnable undo) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			try {
+				return work.get();
+			} catch (RuntimeException e) {
+				undo.run();
+				throw e;
+			}
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCompletion(int status) {
+				if (status != STATUS_COMMITTED) {
+					undo.run();
+				}
+			}
+		});
+		return work.get();
+	}
+}
@@ -0,0 +1,37 @@
+create sequence book_seq start with 1 increment by 50;
+create sequence loan_seq start with 1 increment by 50;
+
+create table book (
+    id bigint not null,
+    title varchar(255),
+    author varchar(255),
+    isbn varchar(255),
+    primary key (id)
+);
+
+create table loan (
+    id bigint not null,
+    customer varchar(100),
+    customer_email varchar(255),
+    id_book bigint,
+    loan_date date,
+    returned boolean,
+    primary key (id)
+);
+
+-- existsByIsbn / findByIsbn / findByIsbnIn
+create unique index ux_book_isbn on book (isbn);
+
+alter table loan add constraint fk_loan_book foreign key (id_book) references book (id);
+
+-- existsByBookAndNotReturned, findByBook and the loan -> book join. Not
+-- every database indexes foreign keys on its own (PostgreSQL does not).
+create index ix_loan_book_returned on loan (id_book, returned);
+
+-- findByBookIsbnOrCustomer
+create index ix_loan_customer on loan (customer);
+
+-- findByLoanDateLessThanAndNotReturned / streamLateLoanEmails. The date
+-- range leads because "returned is null or returned = false" cannot seek;
+-- returned is still checked from the index entry.
+create index ix_loan_loan_date_returned on loan (loan_date, returned);
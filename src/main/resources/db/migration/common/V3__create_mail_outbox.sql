@@ -0,0 +1,17 @@
+create sequence mail_outbox_seq start with 1 increment by 50;
+
+create table mail_outbox (
+    id bigint not null,
+    recipient varchar(255) not null,
+    message varchar(2000) not null,
+    status varchar(20) not null,
+    attempts integer not null,
+    next_attempt_at timestamp not null,
+    created_at timestamp not null,
+    sent_at timestamp,
+    last_error varchar(500),
+    primary key (id)
+);
+
+-- claimBatch: due PENDING rows in id order
+create index ix_mail_outbox_status_next_attempt on mail_outbox (status, next_attempt_at);
@@ -0,0 +1,4 @@
+-- optimistic locking (@Version) and the strong ETags of GET /api/books/{id}
+-- and GET /api/loans/{id}
+alter table book add column version bigint default 0 not null;
+alter table loan add column version bigint default 0 not null;
@@ -0,0 +1,4 @@
+-- H2 has no partial (filtered) indexes. The composite indexes from V1,
+-- ix_loan_book_returned and ix_loan_loan_date_returned, cover the same
+-- queries here. This script keeps the version numbers aligned with the
+-- other vendors.
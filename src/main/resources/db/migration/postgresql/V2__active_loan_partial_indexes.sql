@@ -0,0 +1,5 @@
+-- Only open loans matter for the "already loaned" check and the late loan
+-- job, so these indexes stay small however long the loan history grows.
+create index ix_loan_active_book on loan (id_book) where returned is null or returned = false;
+
+create index ix_loan_active_loan_date on loan (loan_date) where returned is null or returned = false;
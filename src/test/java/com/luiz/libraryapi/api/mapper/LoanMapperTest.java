@@ -0,0 +1,68 @@
+package com.luiz.libraryapi.api.mapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+
+import com.luiz.libraryapi.api.dto.BookDTO;
+import com.luiz.libraryapi.api.dto.LoanDTO;
+import com.luiz.libraryapi.model.entity.Book;
+import com.luiz.libraryapi.model.entity.Loan;
+
+public class LoanMapperTest {
+
+	BookMapper bookMapper = Mappers.getMapper(BookMapper.class);
+	LoanMapper loanMapper = Mappers.getMapper(LoanMapper.class);
+
+	@Test
+	@DisplayName("Deve converter um livro em dto e de volta")
+	public void bookRoundTripTest() {
+		Book book = Book.builder().id(1l).author("Fulano").title("as aventuras").isbn("123").build();
+
+		BookDTO dto = bookMapper.toDto(book);
+		Book entity = bookMapper.toEntity(dto);
+
+		assertThat(dto.getId()).isEqualTo(1l);
+		assertThat(dto.getTitle()).isEqualTo("as aventuras");
+		assertThat(dto.getAuthor()).isEqualTo("Fulano");
+		assertThat(dto.getIsbn()).isEqualTo("123");
+		assertThat(entity).isEqualTo(book);
+	}
+
+	@Test
+	@DisplayName("Deve converter um emprestimo em dto com o livro aninhado")
+	public void loanToDtoTest() {
+		Book book = Book.builder().id(1l).author("Fulano").title("as aventuras").isbn("123").build();
+		Loan loan = Loan.builder()
+				.id(10l)
+				.customer("Fulano")
+				.customerEmail("fulano@email.com")
+				.book(book)
+				.loanDate(LocalDate.now())
+				.build();
+
+		LoanDTO dto = loanMapper.toDto(loan);
+
+		assertThat(dto.getId()).isEqualTo(10l);
+		assertThat(dto.getCustomer()).isEqualTo("Fulano");
+		assertThat(dto.getEmail()).isEqualTo("fulano@email.com");
+		assertThat(dto.getIsbn()).isEqualTo("123");
+		assertThat(dto.getBook().getId()).isEqualTo(1l);
+		assertThat(dto.getBook().getTitle()).isEqualTo("as aventuras");
+	}
+
+	@Test
+	@DisplayName("Deve converter um emprestimo sem livro")
+	public void loanWithoutBookToDtoTest() {
+		Loan loan = Loan.builder().id(10l).customer("Fulano").build();
+
+		LoanDTO dto = loanMapper.toDto(loan);
+
+		assertThat(dto.getIsbn()).isNull();
+		assertThat(dto.getBook()).isNull();
+	}
+}
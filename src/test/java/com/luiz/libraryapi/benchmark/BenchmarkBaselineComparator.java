@@ -0,0 +1,107 @@
+package com.luiz.libraryapi.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compara o resultado JSON do JMH com um baseline e termina com codigo 1 se
+ * algum benchmark piorou mais que o limite (ex.: 0.10 = 10%) alem da margem
+ * de erro somada das duas medicoes. Usado pelo profile "benchmark" do pom.
+ *
+ * Uso: BenchmarkBaselineComparator resultado.json baseline.json [limite]
+ */
+public class BenchmarkBaselineComparator {
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("usage: BenchmarkBaselineComparator <result.json> <baseline.json> [threshold]");
+			System.exit(2);
+		}
+		File result = new File(args[0]);
+		File baseline = new File(args[1]);
+		double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 0.10;
+
+		if (!baseline.exists()) {
+			System.out.println("No baseline at " + baseline + ", nothing to compare. Copy " + result
+					+ " there to start tracking regressions.");
+			return;
+		}
+		List<String> regressions = compare(read(baseline), read(result), threshold);
+		if (!regressions.isEmpty()) {
+			System.out.println(regressions.size() + " benchmark(s) regressed more than " + (threshold * 100) + "%:");
+			regressions.forEach(line -> System.out.println("  " + line));
+			System.exit(1);
+		}
+		System.out.println("No regressions above " + (threshold * 100) + "%.");
+	}
+
+	static List<String> compare(Map<String, Score> baseline, Map<String, Score> current, double threshold) {
+		List<String> regressions = new ArrayList<>();
+		for (Map.Entry<String, Score> entry : current.entrySet()) {
+			Score before = baseline.get(entry.getKey());
+			Score after = entry.getValue();
+			if (before == null) {
+				System.out.println("new   " + entry.getKey() + " " + after);
+				continue;
+			}
+			double change = (after.score - before.score) / before.score;
+			double worse = after.higherIsBetter() ? -change : change;
+			boolean beyondNoise = Math.abs(after.score - before.score) > before.error + after.error;
+			String line = String.format("%s %s -> %s (%+.1f%%)", entry.getKey(), before, after, change * 100);
+			System.out.println((worse > threshold && beyondNoise ? "WORSE " : "ok    ") + line);
+			if (worse > threshold && beyondNoise) {
+				regressions.add(line);
+			}
+		}
+		return regressions;
+	}
+
+	static Map<String, Score> read(File file) throws IOException {
+		Map<String, Score> scores = new LinkedHashMap<>();
+		for (JsonNode run : new ObjectMapper().readTree(file)) {
+			StringBuilder key = new StringBuilder(run.path("benchmark").asText());
+			JsonNode params = run.path("params");
+			if (params.isObject()) {
+				Map<String, String> sorted = new TreeMap<>();
+				params.fields().forEachRemaining(field -> sorted.put(field.getKey(), field.getValue().asText()));
+				key.append(sorted);
+			}
+			JsonNode metric = run.path("primaryMetric");
+			scores.put(key.toString(), new Score(run.path("mode").asText(), metric.path("score").asDouble(),
+					metric.path("scoreError").asDouble(0), metric.path("scoreUnit").asText()));
+		}
+		return scores;
+	}
+
+	static class Score {
+
+		final String mode;
+		final double score;
+		final double error;
+		final String unit;
+
+		Score(String mode, double score, double error, String unit) {
+			this.mode = mode;
+			this.score = score;
+			this.error = Double.isNaN(error) ? 0 : error;
+			this.unit = unit;
+		}
+
+		boolean higherIsBetter() {
+			return "thrpt".equals(mode);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%.3f +/- %.3f %s", score, error, unit);
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package com.luiz.libraryapi.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import com.luiz.libraryapi.LibraryApiApplication;
+import com.luiz.libraryapi.model.entity.Book;
+import com.luiz.libraryapi.model.repository.BookRepository;
+import com.luiz.libraryapi.service.impl.BookServiceImpl;
+
+/**
+ * BookServiceImpl.find contra um H2 em memoria com o catalogo populado: busca
+ * por Example (like em titulo/autor) e, com searchIndex=true, pelo indice de
+ * trigramas carregado na subida.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookFindBenchmark {
+
+	@Param({ "10000" })
+	int catalogSize;
+
+	@Param({ "false", "true" })
+	boolean searchIndex;
+
+	ConfigurableApplicationContext context;
+	BookServiceImpl service;
+	Book titleFilter;
+	Book titleAndAuthorFilter;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = new SpringApplicationBuilder(LibraryApiApplication.class)
+				.web(WebApplicationType.NONE)
+				.properties("spring.jpa.show-sql=false", "logging.level.root=WARN", "spring.main.banner-mode=off")
+				.run();
+		BookRepository repository = context.getBean(BookRepository.class);
+		List<Book> books = new ArrayList<>(catalogSize);
+		for (int i = 0; i < catalogSize; i++) {
+			books.add(Book.builder().title("Titulo " + i + (i % 10 == 0 ? " aventuras" : ""))
+					.author("Autor " + (i % 100)).isbn("isbn-" + i).build());
+		}
+		repository.saveAll(books);
+		service = new BookServiceImpl(repository);
+		if (searchIndex) {
+			service.rebuildSearchIndex();
+		}
+		titleFilter = Book.builder().title("aventuras").build();
+		titleAndAuthorFilter = Book.builder().title("aventuras").author("autor 10").build();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public Page<Book> findByTitle() {
+		return service.find(titleFilter, PageRequest.of(0, 20));
+	}
+
+	@Benchmark
+	public Page<Book> findByTitleAndAuthor() {
+		return service.find(titleAndAuthorFilter, PageRequest.of(0, 20));
+	}
+}
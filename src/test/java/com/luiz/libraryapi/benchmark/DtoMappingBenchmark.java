@@ -0,0 +1,105 @@
+package com.luiz.libraryapi.benchmark;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.mapstruct.factory.Mappers;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.luiz.libraryapi.api.dto.BookDTO;
+import com.luiz.libraryapi.api.dto.LoanDTO;
+import com.luiz.libraryapi.api.mapper.BookMapper;
+import com.luiz.libraryapi.api.mapper.LoanMapper;
+import com.luiz.libraryapi.model.entity.Book;
+import com.luiz.libraryapi.model.entity.Loan;
+
+/**
+ * Compara o mapeamento de uma pagina de emprestimos feito pelo ModelMapper
+ * (caminho antigo dos controllers) com os mappers gerados pelo MapStruct.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoMappingBenchmark {
+
+	@Param({ "20", "100" })
+	int pageSize;
+
+	ModelMapper modelMapper;
+	BookMapper bookMapper;
+	LoanMapper loanMapper;
+	List<Loan> loans;
+
+	@Setup
+	public void setUp() {
+		modelMapper = new ModelMapper();
+		bookMapper = Mappers.getMapper(BookMapper.class);
+		loanMapper = Mappers.getMapper(LoanMapper.class);
+		loans = new ArrayList<>(pageSize);
+		for (long i = 0; i < pageSize; i++) {
+			Book book = Book.builder().id(i).title("Titulo " + i).author("Autor " + i).isbn("isbn-" + i).build();
+			loans.add(Loan.builder()
+					.id(i)
+					.customer("Fulano " + i)
+					.customerEmail("fulano" + i + "@email.com")
+					.book(book)
+					.loanDate(LocalDate.now())
+					.build());
+		}
+	}
+
+	@Benchmark
+	public List<LoanDTO> modelMapper() {
+		List<LoanDTO> result = new ArrayList<>(loans.size());
+		for (Loan loan : loans) {
+			BookDTO bookDTO = modelMapper.map(loan.getBook(), BookDTO.class);
+			LoanDTO loanDTO = modelMapper.map(loan, LoanDTO.class);
+			loanDTO.setBook(bookDTO);
+			result.add(loanDTO);
+		}
+		return result;
+	}
+
+	@Benchmark
+	public List<LoanDTO> mapStruct() {
+		List<LoanDTO> result = new ArrayList<>(loans.size());
+		for (Loan loan : loans) {
+			result.add(loanMapper.toDto(loan));
+		}
+		return result;
+	}
+
+	@Benchmark
+	public List<BookDTO> modelMapperBooks() {
+		List<BookDTO> result = new ArrayList<>(loans.size());
+		for (Loan loan : loans) {
+			result.add(modelMapper.map(loan.getBook(), BookDTO.class));
+		}
+		return result;
+	}
+
+	@Benchmark
+	public List<BookDTO> mapStructBooks() {
+		List<BookDTO> result = new ArrayList<>(loans.size());
+		for (Loan loan : loans) {
+			result.add(bookMapper.toDto(loan.getBook()));
+		}
+		return result;
+	}
+}
@@ -0,0 +1,101 @@
+package com.luiz.libraryapi.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.luiz.libraryapi.api.dto.BookDTO;
+import com.luiz.libraryapi.api.dto.LoanDTO;
+
+/**
+ * Page<LoanDTO> de 1000 linhas em JSON, CBOR e Smile: tempo para escrever a
+ * pagina, tempo para o consumidor ler o conteudo de volta e, no setup, o
+ * tamanho do payload de cada formato (aparece na saida do JMH).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoanPageFormatBenchmark {
+
+	private static final int PAGE_SIZE = 1000;
+
+	@Param({ "json", "cbor", "smile" })
+	String format;
+
+	ObjectMapper objectMapper;
+	Page<LoanDTO> page;
+	byte[] payload;
+
+	@Setup
+	public void setUp() throws IOException {
+		objectMapper = Jackson2ObjectMapperBuilder.json().factory(factory(format)).build();
+		List<LoanDTO> content = new ArrayList<>(PAGE_SIZE);
+		for (long i = 0; i < PAGE_SIZE; i++) {
+			BookDTO book = BookDTO.builder().id(i).title("Titulo " + i).author("Autor " + i).isbn("isbn-" + i).build();
+			content.add(LoanDTO.builder()
+					.id(i)
+					.isbn(book.getIsbn())
+					.customer("Fulano " + i)
+					.email("fulano" + i + "@email.com")
+					.book(book)
+					.build());
+		}
+		page = new PageImpl<>(content, PageRequest.of(0, PAGE_SIZE), 100_000);
+		payload = objectMapper.writeValueAsBytes(page);
+		System.out.printf("%n%s payload for %d loans: %d bytes%n", format, PAGE_SIZE, payload.length);
+	}
+
+	@Benchmark
+	public byte[] writePage() throws IOException {
+		return objectMapper.writeValueAsBytes(page);
+	}
+
+	@Benchmark
+	public LoanPage readPage() throws IOException {
+		return objectMapper.readValue(payload, LoanPage.class);
+	}
+
+	private static JsonFactory factory(String format) {
+		switch (format) {
+		case "cbor":
+			return new CBORFactory();
+		case "smile":
+			return new SmileFactory();
+		default:
+			return new JsonFactory();
+		}
+	}
+
+	/**
+	 * O que um consumidor le de uma Page: o conteudo e o total.
+	 */
+	public static class LoanPage {
+
+		public List<LoanDTO> content;
+		public long totalElements;
+	}
+}
@@ -0,0 +1,67 @@
+package com.luiz.libraryapi.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.luiz.libraryapi.api.dto.BookDTO;
+import com.luiz.libraryapi.api.dto.LoanDTO;
+
+/**
+ * Serializacao de uma Page<LoanDTO> com o ObjectMapper configurado como o do
+ * Spring MVC, que e o que a resposta de GET /api/loans paga por requisicao.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoanPageSerializationBenchmark {
+
+	@Param({ "20", "100" })
+	int pageSize;
+
+	ObjectMapper objectMapper;
+	Page<LoanDTO> page;
+
+	@Setup
+	public void setUp() {
+		objectMapper = Jackson2ObjectMapperBuilder.json().build();
+		List<LoanDTO> content = new ArrayList<>(pageSize);
+		for (long i = 0; i < pageSize; i++) {
+			BookDTO book = BookDTO.builder().id(i).title("Titulo " + i).author("Autor " + i).isbn("isbn-" + i).build();
+			content.add(LoanDTO.builder()
+					.id(i)
+					.isbn(book.getIsbn())
+					.customer("Fulano " + i)
+					.email("fulano" + i + "@email.com")
+					.book(book)
+					.build());
+		}
+		page = new PageImpl<>(content, PageRequest.of(0, pageSize), 10_000);
+	}
+
+	@Benchmark
+	public byte[] serializePage() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(page);
+	}
+}
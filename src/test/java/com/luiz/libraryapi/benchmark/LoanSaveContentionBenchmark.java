@@ -0,0 +1,108 @@
+package com.luiz.libraryapi.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.luiz.libraryapi.exception.BusinessException;
+import com.luiz.libraryapi.model.entity.Book;
+import com.luiz.libraryapi.model.entity.Loan;
+import com.luiz.libraryapi.model.repository.LoanRepository;
+import com.luiz.libraryapi.service.impl.ActiveLoanIndex;
+import com.luiz.libraryapi.service.impl.ApproximateCountCache;
+import com.luiz.libraryapi.service.impl.LoanServiceImpl;
+import com.luiz.libraryapi.service.impl.TableChangeCounter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * LoanServiceImpl.save seguido da devolucao (update) com varias threads
+ * disputando os mesmos livros. O repositorio e uma implementacao em memoria para medir
+ * so o custo do servico: a pre-checagem pelo bitset de emprestimos ativos
+ * (index=bitset) contra a consulta existsByBookAndNotReturned (index=repository).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class LoanSaveContentionBenchmark {
+
+	@Param({ "bitset", "repository" })
+	String index;
+
+	@Param({ "100", "10000" })
+	int books;
+
+	LoanServiceImpl service;
+
+	@Setup
+	public void setUp() {
+		service = new LoanServiceImpl(inMemoryRepository(), new ApproximateCountCache(), new ActiveLoanIndex(),
+				new TableChangeCounter(), new SimpleMeterRegistry());
+		if ("bitset".equals(index)) {
+			service.rebuildActiveLoanIndex();
+		}
+	}
+
+	@Benchmark
+	public boolean saveAndReturn() {
+		Book book = Book.builder().id(ThreadLocalRandom.current().nextLong(1, books + 1)).build();
+		Loan loan = Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now()).build();
+		try {
+			service.save(loan);
+		} catch (BusinessException e) {
+			return false;
+		}
+		loan.setReturned(true);
+		service.update(loan);
+		return true;
+	}
+
+	private static LoanRepository inMemoryRepository() {
+		Set<Long> active = ConcurrentHashMap.newKeySet();
+		AtomicLong ids = new AtomicLong();
+		return (LoanRepository) Proxy.newProxyInstance(LoanRepository.class.getClassLoader(),
+				new Class<?>[] { LoanRepository.class }, (proxy, method, args) -> {
+					switch (method.getName()) {
+					case "existsByBookAndNotReturned":
+						return active.contains(((Book) args[0]).getId());
+					case "findActiveLoanBookIds":
+						return Collections.emptyList();
+					case "save":
+						Loan loan = (Loan) args[0];
+						if (loan.getId() == null) {
+							loan.setId(ids.incrementAndGet());
+						}
+						if (Boolean.TRUE.equals(loan.getReturned())) {
+							active.remove(loan.getBook().getId());
+						} else {
+							active.add(loan.getBook().getId());
+						}
+						return loan;
+					default:
+						throw new UnsupportedOperationException(method.getName());
+					}
+				});
+	}
+}
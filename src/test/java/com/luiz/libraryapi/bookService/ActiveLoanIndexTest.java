@@ -0,0 +1,56 @@
+package com.luiz.libraryapi.bookService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.luiz.libraryapi.service.impl.ActiveLoanIndex;
+
+public class ActiveLoanIndexTest {
+
+	ActiveLoanIndex index;
+
+	@BeforeEach
+	public void setUp() {
+		index = new ActiveLoanIndex();
+		index.rebuild(Arrays.asList(2l, 5l));
+	}
+
+	@Test
+	@DisplayName("Deve informar a disponibilidade dos livros na ordem pedida")
+	public void availabilityTest() {
+		assertThat(index.isReady()).isTrue();
+		assertThat(index.availability(Arrays.asList(5l, 1l, 2l)))
+				.containsExactly(
+						entry(5l, false),
+						entry(1l, true),
+						entry(2l, false));
+	}
+
+	@Test
+	@DisplayName("Nao deve marcar duas vezes o mesmo livro como emprestado")
+	public void tryMarkLoanedTest() {
+		assertThat(index.tryMarkLoaned(1l)).isTrue();
+		assertThat(index.tryMarkLoaned(1l)).isFalse();
+
+		index.markReturned(1l);
+
+		assertThat(index.isLoaned(1l)).isFalse();
+		assertThat(index.tryMarkLoaned(1l)).isTrue();
+	}
+
+	@Test
+	@DisplayName("Deve desligar o indice quando um id nao cabe no bitset")
+	public void idOutOfRangeTest() {
+		List<Long> ids = Arrays.asList(1l, Integer.MAX_VALUE + 1l);
+		index.rebuild(ids);
+
+		assertThat(index.isReady()).isFalse();
+	}
+}
@@ -0,0 +1,66 @@
+package com.luiz.libraryapi.bookService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.luiz.libraryapi.service.impl.ApproximateCountCache;
+
+public class ApproximateCountCacheTest {
+
+	@Test
+	@DisplayName("Deve executar o count apenas na primeira leitura de um filtro")
+	public void cachedCountTest() {
+		ApproximateCountCache cache = new ApproximateCountCache(60_000, 10);
+		AtomicLong calls = new AtomicLong();
+
+		long first = cache.get(Arrays.asList("loans", "123", "Fulano"), () -> calls.incrementAndGet() * 10);
+		long second = cache.get(Arrays.asList("loans", "123", "Fulano"), () -> calls.incrementAndGet() * 10);
+
+		assertThat(first).isEqualTo(10);
+		assertThat(second).isEqualTo(10);
+		assertThat(calls.get()).isEqualTo(1);
+	}
+
+	@Test
+	@DisplayName("Deve recalcular os totais vencidos no refresh")
+	public void refreshStaleCountTest() {
+		ApproximateCountCache cache = new ApproximateCountCache(0, 10);
+		AtomicLong total = new AtomicLong(5);
+
+		cache.get(Arrays.asList("books", "a"), total::get);
+		total.set(7);
+		cache.refresh();
+
+		assertThat(cache.get(Arrays.asList("books", "a"), () -> -1)).isEqualTo(7);
+	}
+
+	@Test
+	@DisplayName("Deve descartar o filtro lido ha mais tempo quando o cache esta cheio")
+	public void evictWhenFullTest() {
+		ApproximateCountCache cache = new ApproximateCountCache(60_000, 1);
+
+		cache.get(Arrays.asList("books", "a"), () -> 1);
+		cache.get(Arrays.asList("books", "b"), () -> 2);
+
+		assertThat(cache.get(Arrays.asList("books", "a"), () -> 3)).isEqualTo(3);
+	}
+
+	@Test
+	@DisplayName("Deve contar fora do mapa, sem travar a leitura de outro filtro durante o count")
+	public void countOutsideMapTest() {
+		ApproximateCountCache cache = new ApproximateCountCache(60_000, 10);
+		// "Aa" e "BB" tem o mesmo hashCode, entao as duas chaves caem no mesmo bin
+		List<String> other = Arrays.asList("books", "BB");
+
+		long total = cache.get(Arrays.asList("books", "Aa"), () -> cache.get(other, () -> 2) + 1);
+
+		assertThat(total).isEqualTo(3);
+		assertThat(cache.get(other, () -> -1)).isEqualTo(2);
+	}
+}
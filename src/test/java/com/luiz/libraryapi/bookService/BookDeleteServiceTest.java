@@ -0,0 +1,137 @@
+package com.luiz.libraryapi.bookService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.luiz.libraryapi.api.dto.BookDeleteResultDTO;
+import com.luiz.libraryapi.exception.BusinessException;
+import com.luiz.libraryapi.model.entity.Book;
+import com.luiz.libraryapi.model.entity.Loan;
+import com.luiz.libraryapi.model.repository.BookRepository;
+import com.luiz.libraryapi.model.repository.LoanRepository;
+import com.luiz.libraryapi.service.BookDeleteService;
+import com.luiz.libraryapi.service.BookDeleteService.LoanPolicy;
+import com.luiz.libraryapi.service.impl.ActiveLoanIndex;
+import com.luiz.libraryapi.service.impl.BookDeleteServiceImpl;
+import com.luiz.libraryapi.service.impl.BookIsbnCache;
+import com.luiz.libraryapi.service.impl.BookSearchIndex;
+import com.luiz.libraryapi.service.impl.TableChangeCounter;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest(properties = "application.books.delete-chunk-size=2")
+@Import({ BookDeleteServiceImpl.class, BookSearchIndex.class, BookIsbnCache.class, ActiveLoanIndex.class,
+		TableChangeCounter.class })
+public class BookDeleteServiceTest {
+
+	@Autowired
+	TestEntityManager entityManager;
+
+	@Autowired
+	BookDeleteService service;
+
+	@Autowired
+	BookRepository bookRepository;
+
+	@Autowired
+	LoanRepository loanRepository;
+
+	@Test
+	@DisplayName("Deve recusar a exclusao inteira quando algum livro tiver emprestimo")
+	public void deleteByIdsRejectTest() {
+		Book free = persistBook("1", "livre");
+		Book loaned = persistBook("2", "emprestado");
+		persistLoan(loaned);
+
+		Throwable exception = catchThrowable(
+				() -> service.deleteByIds(Arrays.asList(free.getId(), loaned.getId()), LoanPolicy.REJECT));
+
+		assertThat(exception).isInstanceOf(BusinessException.class)
+				.hasMessage("Books with loans cannot be deleted: [" + loaned.getId() + "]");
+		assertThat(bookRepository.count()).isEqualTo(2);
+	}
+
+	@Test
+	@DisplayName("Deve apagar os emprestimos junto e ignorar ids inexistentes no modo cascade")
+	public void deleteByIdsCascadeTest() {
+		Book first = persistBook("1", "primeiro");
+		Book second = persistBook("2", "segundo");
+		Book third = persistBook("3", "terceiro");
+		Book kept = persistBook("4", "mantido");
+		persistLoan(first);
+		persistLoan(third);
+		persistLoan(kept);
+		entityManager.clear();
+
+		BookDeleteResultDTO result = service.deleteByIds(
+				Arrays.asList(first.getId(), second.getId(), third.getId(), first.getId(), 999_999L), LoanPolicy.CASCADE);
+
+		assertThat(result.getBooks()).isEqualTo(3);
+		assertThat(result.getLoans()).isEqualTo(2);
+		assertThat(bookRepository.findAll()).extracting(Book::getId).containsExactly(kept.getId());
+		assertThat(loanRepository.count()).isEqualTo(1);
+	}
+
+	@Test
+	@DisplayName("Deve apagar em blocos os livros que casam com o filtro")
+	public void deleteByFilterTest() {
+		for (int i = 0; i < 5; i++) {
+			persistBook("a" + i, "Java " + i);
+		}
+		Book kept = persistBook("b", "Kotlin");
+		entityManager.clear();
+
+		BookDeleteResultDTO result = service.deleteByFilter(Book.builder().title("java").build(), LoanPolicy.REJECT);
+
+		assertThat(result.getBooks()).isEqualTo(5);
+		assertThat(result.getLoans()).isZero();
+		assertThat(bookRepository.findAll()).extracting(Book::getId).containsExactly(kept.getId());
+	}
+
+	@Test
+	@DisplayName("Deve apagar pelo isbn exato, sem tocar em livros com isbn parecido")
+	public void deleteByIsbnFilterTest() {
+		Book target = persistBook("1", "alvo");
+		Book prefix = persistBook("10", "prefixo");
+		Book contains = persistBook("21", "contem");
+		entityManager.clear();
+
+		BookDeleteResultDTO result = service.deleteByFilter(Book.builder().isbn("1").build(), LoanPolicy.REJECT);
+
+		assertThat(result.getBooks()).isEqualTo(1);
+		assertThat(bookRepository.existsById(target.getId())).isFalse();
+		assertThat(bookRepository.findAll()).extracting(Book::getId)
+				.containsExactlyInAnyOrder(prefix.getId(), contains.getId());
+	}
+
+	@Test
+	@DisplayName("Deve exigir ids ou algum campo do filtro")
+	public void deleteWithoutCriteriaTest() {
+		assertThat(catchThrowable(() -> service.deleteByFilter(new Book(), LoanPolicy.CASCADE)))
+				.isInstanceOf(BusinessException.class).hasMessage("A filter (title, author or isbn) is required.");
+		assertThat(catchThrowable(() -> service.deleteByIds(Collections.emptyList(), LoanPolicy.CASCADE)))
+				.isInstanceOf(BusinessException.class).hasMessage("No book ids to delete.");
+	}
+
+	private Book persistBook(String isbn, String title) {
+		return entityManager.persistFlushFind(Book.builder().isbn(isbn).title(title).author("Fulano").build());
+	}
+
+	private void persistLoan(Book book) {
+		entityManager.persistAndFlush(Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now()).build());
+	}
+}
@@ -0,0 +1,107 @@
+package com.luiz.libraryapi.bookService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.luiz.libraryapi.api.dto.BookImportResultDTO;
+import com.luiz.libraryapi.model.entity.Book;
+import com.luiz.libraryapi.service.BookImportService;
+import com.luiz.libraryapi.service.BookService;
+import com.luiz.libraryapi.service.impl.BookImportServiceImpl;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class BookImportServiceTest {
+
+	BookImportService service;
+
+	@MockBean
+	BookService bookService;
+
+	@BeforeEach
+	public void setUp() {
+		service = new BookImportServiceImpl(bookService);
+		when(bookService.saveAll(anyList())).thenAnswer(invocation -> new ArrayList<>(invocation.<List<Book>>getArgument(0)));
+	}
+
+	@Test
+	@DisplayName("Deve importar um CSV respeitando o cabecalho e campos entre aspas")
+	@SuppressWarnings("unchecked")
+	public void importCsvTest() {
+		String csv = "isbn,title,author\n"
+				+ "001,\"Aventuras, \"\"volume 1\"\"\",Fulano\n"
+				+ "002,Dom Casmurro,Machado de Assis\n";
+
+		BookImportResultDTO result = service.importCsv(stream(csv));
+
+		ArgumentCaptor<List<Book>> captor = ArgumentCaptor.forClass(List.class);
+		verify(bookService).saveAll(captor.capture());
+		assertThat(captor.getValue()).extracting(Book::getTitle)
+				.containsExactly("Aventuras, \"volume 1\"", "Dom Casmurro");
+		assertThat(result.getRead()).isEqualTo(2);
+		assertThat(result.getImported()).isEqualTo(2);
+		assertThat(result.getErrors()).isEmpty();
+	}
+
+	@Test
+	@DisplayName("Deve reportar linhas invalidas e isbns duplicados sem interromper a importacao")
+	public void importNdjsonWithErrorsTest() {
+		String ndjson = "{\"title\":\"Livro\",\"author\":\"Fulano\",\"isbn\":\"001\"}\n"
+				+ "{\"title\":\"Sem autor\",\"isbn\":\"002\"}\n"
+				+ "{nao e json}\n"
+				+ "{\"title\":\"Repetido\",\"author\":\"Fulano\",\"isbn\":\"001\"}\n";
+
+		BookImportResultDTO result = service.importNdjson(stream(ndjson));
+
+		assertThat(result.getRead()).isEqualTo(4);
+		assertThat(result.getImported()).isEqualTo(1);
+		assertThat(result.getDuplicated()).isEqualTo(1);
+		assertThat(result.getInvalid()).isEqualTo(2);
+		assertThat(result.getErrors()).hasSize(2);
+		assertThat(result.getErrors().get(0)).startsWith("line 2: author");
+		assertThat(result.getErrors().get(1)).startsWith("line 3: invalid json");
+	}
+
+	@Test
+	@DisplayName("Deve gravar em blocos e contar como duplicados os isbns ja cadastrados")
+	public void importInChunksTest() {
+		StringBuilder csv = new StringBuilder("title,author,isbn\n");
+		for (int i = 0; i < 1200; i++) {
+			csv.append("Livro ").append(i).append(",Fulano,").append(i).append('\n');
+		}
+		when(bookService.saveAll(anyList())).thenAnswer(invocation -> {
+			List<Book> books = new ArrayList<>(invocation.<List<Book>>getArgument(0));
+			books.remove(0);
+			return books;
+		});
+
+		BookImportResultDTO result = service.importCsv(stream(csv.toString()));
+
+		verify(bookService, times(3)).saveAll(anyList());
+		assertThat(result.getRead()).isEqualTo(1200);
+		assertThat(result.getImported()).isEqualTo(1197);
+		assertThat(result.getDuplicated()).isEqualTo(3);
+	}
+
+	private static InputStream stream(String content) {
+		return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,57 @@
+package com.luiz.libraryapi.bookService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.luiz.libraryapi.model.entity.Book;
+import com.luiz.libraryapi.service.impl.BookIsbnCache;
+
+public class BookIsbnCacheTest {
+
+	@Test
+	@DisplayName("Deve invalidar pelo id a entrada guardada ou carregada sob o ISBN do livro")
+	public void invalidateByIdTest() {
+		BookIsbnCache cache = new BookIsbnCache();
+		cache.put(Book.builder().id(1l).isbn("123").build());
+		cache.get("321", isbn -> Optional.of(Book.builder().id(2l).isbn(isbn).build()));
+
+		cache.invalidate(Book.builder().id(1l).build());
+		cache.invalidate(Book.builder().id(2l).build());
+
+		assertThat(cache.getIfPresent("123")).isNull();
+		assertThat(cache.getIfPresent("321")).isNull();
+	}
+
+	@Test
+	@DisplayName("Deve invalidar o ISBN antigo quando o livro mudou de ISBN")
+	public void invalidateChangedIsbnTest() {
+		BookIsbnCache cache = new BookIsbnCache();
+		cache.put(Book.builder().id(1l).isbn("123").build());
+		cache.put(Book.builder().id(2l).isbn("999").build());
+
+		cache.invalidate(Book.builder().id(1l).isbn("456").build());
+
+		assertThat(cache.getIfPresent("123")).isNull();
+		assertThat(cache.getIfPresent("999")).isNotNull();
+	}
+
+	@Test
+	@DisplayName("Deve invalidar varios livros pelos ids numa unica chamada")
+	public void invalidateIdsTest() {
+		BookIsbnCache cache = new BookIsbnCache();
+		cache.put(Book.builder().id(1l).isbn("123").build());
+		cache.put(Book.builder().id(2l).isbn("321").build());
+		cache.put(Book.builder().id(3l).isbn("999").build());
+
+		cache.invalidateIds(Arrays.asList(1l, 2l));
+
+		assertThat(cache.getIfPresent("123")).isNull();
+		assertThat(cache.getIfPresent("321")).isNull();
+		assertThat(cache.getIfPresent("999")).isNotNull();
+	}
+}
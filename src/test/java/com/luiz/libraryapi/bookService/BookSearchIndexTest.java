@@ -0,0 +1,67 @@
+package com.luiz.libraryapi.bookService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.luiz.libraryapi.model.entity.Book;
+import com.luiz.libraryapi.service.impl.BookSearchIndex;
+
+public class BookSearchIndexTest {
+
+	BookSearchIndex index;
+
+	@BeforeEach
+	public void setUp() {
+		index = new BookSearchIndex();
+		index.put(Book.builder().id(1l).title("As Aventuras de Pi").author("Yann Martel").build());
+		index.put(Book.builder().id(2l).title("Aventuras na Historia").author("Fulano").build());
+		index.put(Book.builder().id(3l).title("Dom Casmurro").author("Machado de Assis").build());
+		index.markReady();
+	}
+
+	@Test
+	@DisplayName("Deve encontrar livros cujo titulo contem o termo ignorando maiusculas")
+	public void searchByTitleTest() {
+		assertThat(index.search("AVENTURA", null)).containsExactly(1, 2);
+		assertThat(index.search("casmurro", "")).containsExactly(3);
+	}
+
+	@Test
+	@DisplayName("Deve combinar titulo e autor")
+	public void searchByTitleAndAuthorTest() {
+		assertThat(index.search("aventuras", "martel")).containsExactly(1);
+		assertThat(index.search("aventuras", "machado")).isEmpty();
+	}
+
+	@Test
+	@DisplayName("Deve confirmar a ordem dos caracteres e nao apenas os trigramas")
+	public void searchVerifiesSubstringTest() {
+		index.put(Book.builder().id(4l).title("abcd bcde").author("x").build());
+
+		assertThat(index.search("abcde", null)).isEmpty();
+	}
+
+	@Test
+	@DisplayName("Deve refletir atualizacao e remocao de livros")
+	public void updateAndRemoveTest() {
+		index.put(Book.builder().id(2l).title("Memorias Postumas").author("Machado de Assis").build());
+		index.remove(3l);
+
+		assertThat(index.search("aventuras", null)).containsExactly(1);
+		assertThat(index.search(null, "machado")).containsExactly(2);
+		assertThat(index.size()).isEqualTo(2);
+	}
+
+	@Test
+	@DisplayName("Nao deve responder termos curtos nem antes de estar pronto")
+	public void unsupportedSearchTest() {
+		assertThat(index.search("av", null)).isNull();
+
+		index.clear();
+		index.put(Book.builder().id(1l).title("As Aventuras de Pi").author("Yann Martel").build());
+		assertThat(index.search("aventuras", null)).isNull();
+	}
+}
@@ -1,12 +1,16 @@
 package com.luiz.libraryapi.bookService;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.assertj.core.api.Assertions;
@@ -22,12 +26,21 @@ import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
 
 import com.luiz.libraryapi.exception.BusinessException;
 import com.luiz.libraryapi.model.entity.Book;
 import com.luiz.libraryapi.model.repository.BookRepository;
 import com.luiz.libraryapi.service.BookService;
+import com.luiz.libraryapi.service.impl.ApproximateCountCache;
+import com.luiz.libraryapi.service.impl.BookIsbnCache;
+import com.luiz.libraryapi.service.impl.BookSearchIndex;
 import com.luiz.libraryapi.service.impl.BookServiceImpl;
+import com.luiz.libraryapi.service.impl.TableChangeCounter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")  
@@ -228,4 +241,182 @@ public class BookServiceTest {
 		
 		verify(repository, times(1)).findByIsbn(isbn);
 	}
+	
+	@Test
+	@DisplayName ("Deve filtrar livros por titulo pelo indice em memoria sem consultar por exemplo")
+	public void findBookBySearchIndexTest() {
+		BookSearchIndex searchIndex = new BookSearchIndex();
+		BookServiceImpl indexedService = new BookServiceImpl(repository, new ApproximateCountCache(), searchIndex,
+				new BookIsbnCache(), new TableChangeCounter(), new SimpleMeterRegistry());
+		Book first = Book.builder().id(1l).author("Fulano").title("as aventuras").isbn("123").build();
+		Book second = Book.builder().id(2l).author("Ciclano").title("outras aventuras").isbn("321").build();
+		when(repository.findByFilterAfter(Mockito.isNull(), Mockito.isNull(), Mockito.isNull(), Mockito.eq(0L), Mockito.any()))
+				.thenReturn(Arrays.asList(first, second));
+		when(repository.findAllById(Arrays.asList(2l))).thenReturn(Arrays.asList(second));
+		indexedService.rebuildSearchIndex();
+		
+		Page<Book> result = indexedService.find(Book.builder().title("AVENTURAS").build(), PageRequest.of(1, 1));
+		
+		assertThat(result.getTotalElements()).isEqualTo(2);
+		assertThat(result.getContent()).containsExactly(second);
+		verify(repository, Mockito.never()).findAll(Mockito.any(Example.class), Mockito.any(PageRequest.class));
+	}
+	
+	@Test
+	@DisplayName ("Deve aplicar o patch sem carregar o livro e reindexar so o campo alterado")
+	public void patchBookTest() {
+		BookSearchIndex searchIndex = new BookSearchIndex();
+		BookServiceImpl indexedService = new BookServiceImpl(repository, new ApproximateCountCache(), searchIndex,
+				new BookIsbnCache(), new TableChangeCounter(), new SimpleMeterRegistry());
+		Book book = Book.builder().id(1l).author("Fulano").title("as aventuras").isbn("123").build();
+		when(repository.findByFilterAfter(Mockito.isNull(), Mockito.isNull(), Mockito.isNull(), Mockito.eq(0L), Mockito.any()))
+				.thenReturn(Arrays.asList(book));
+		indexedService.rebuildSearchIndex();
+		Map<String, String> fields = Collections.singletonMap("title", "novas historias");
+		when(repository.patch(1l, 3l, fields)).thenReturn(1);
+		
+		assertThat(indexedService.patch(1l, 3l, fields)).isEqualTo(BookService.PatchOutcome.PATCHED);
+		
+		assertThat(searchIndex.search("historias", "fulano")).containsExactly(1);
+		assertThat(searchIndex.search("aventuras", null)).isEmpty();
+		verify(repository, never()).findById(Mockito.anyLong());
+		verify(repository, never()).save(Mockito.any());
+	}
+	
+	@Test
+	@DisplayName ("Deve aplicar o patch no indice e no cache de isbn so depois do commit")
+	public void patchOnlyAfterCommitTest() {
+		BookSearchIndex searchIndex = new BookSearchIndex();
+		BookIsbnCache isbnCache = new BookIsbnCache();
+		BookServiceImpl indexedService = new BookServiceImpl(repository, new ApproximateCountCache(), searchIndex,
+				isbnCache, new TableChangeCounter(), new SimpleMeterRegistry());
+		Book book = Book.builder().id(1l).author("Fulano").title("as aventuras").isbn("123").build();
+		when(repository.findByFilterAfter(Mockito.isNull(), Mockito.isNull(), Mockito.isNull(), Mockito.eq(0L), Mockito.any()))
+				.thenReturn(Arrays.asList(book));
+		indexedService.rebuildSearchIndex();
+		isbnCache.put(book);
+		Map<String, String> fields = Collections.singletonMap("title", "novas historias");
+		when(repository.patch(1l, 3l, fields)).thenReturn(1);
+		
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			assertThat(indexedService.patch(1l, 3l, fields)).isEqualTo(BookService.PatchOutcome.PATCHED);
+			assertThat(isbnCache.getIfPresent("123")).isNotNull();
+			TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(),
+					TransactionSynchronization.STATUS_ROLLED_BACK);
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		
+		assertThat(searchIndex.search("aventuras", null)).containsExactly(1);
+		assertThat(searchIndex.search("historias", null)).isEmpty();
+		
+		indexedService.patch(1l, 3l, fields);
+		
+		assertThat(searchIndex.search("historias", null)).containsExactly(1);
+		assertThat(isbnCache.getIfPresent("123")).isNull();
+	}
+	
+	@Test
+	@DisplayName ("Deve diferenciar livro inexistente de versao desatualizada e recusar campos nao permitidos")
+	public void patchBookOutcomesTest() {
+		Map<String, String> fields = Collections.singletonMap("author", "Ciclano");
+		when(repository.patch(Mockito.anyLong(), Mockito.anyLong(), Mockito.any())).thenReturn(0);
+		when(repository.findVersionById(1l)).thenReturn(Optional.of(4l));
+		when(repository.findVersionById(2l)).thenReturn(Optional.empty());
+		
+		assertThat(service.patch(1l, 3l, fields)).isEqualTo(BookService.PatchOutcome.VERSION_MISMATCH);
+		assertThat(service.patch(2l, 3l, fields)).isEqualTo(BookService.PatchOutcome.NOT_FOUND);
+		assertThat(catchThrowable(() -> service.patch(1l, 4l, Collections.singletonMap("isbn", "999"))))
+				.isInstanceOf(BusinessException.class).hasMessage("Field cannot be patched: isbn");
+		assertThat(catchThrowable(() -> service.patch(1l, 4l, Collections.singletonMap("title", ""))))
+				.isInstanceOf(BusinessException.class).hasMessage("Field cannot be empty: title");
+	}
+	
+	@Test
+	@DisplayName ("Deve consultar o banco uma unica vez para o mesmo isbn, inclusive quando nao existe")
+	public void getBookByIsbnCachedTest() {
+		when (repository.findByIsbn("1230")).thenReturn(Optional.of(Book.builder().id(1l).isbn("1230").build()));
+		when (repository.findByIsbn("999")).thenReturn(Optional.empty());
+		
+		service.getBookByIsbn("1230");
+		Optional<Book> book = service.getBookByIsbn("1230");
+		service.getBookByIsbn("999");
+		Optional<Book> missing = service.getBookByIsbn("999");
+		
+		assertThat(book.get().getId()).isEqualTo(1l);
+		assertThat(missing.isPresent()).isFalse();
+		verify(repository, times(1)).findByIsbn("1230");
+		verify(repository, times(1)).findByIsbn("999");
+	}
+	
+	@Test
+	@DisplayName ("Deve invalidar o isbn em cache ao atualizar e ao deletar o livro")
+	public void isbnCacheInvalidationTest() {
+		Book book = Book.builder().id(1l).title("as aventuras").isbn("1230").build();
+		when (repository.findByIsbn("1230")).thenReturn(Optional.of(book));
+		when (repository.save(book)).thenReturn(book);
+		
+		service.getBookByIsbn("1230");
+		service.update(book);
+		service.getBookByIsbn("1230");
+		service.delete(book);
+		service.getBookByIsbn("1230");
+		
+		verify(repository, times(3)).findByIsbn("1230");
+	}
+	
+	@Test
+	@DisplayName ("Deve recusar isbn duplicado que ja esta em cache sem consultar o banco")
+	public void saveDuplicatedIsbnFromCacheTest() {
+		when (repository.findByIsbn("123")).thenReturn(Optional.of(Book.builder().id(1l).isbn("123").build()));
+		service.getBookByIsbn("123");
+		
+		Throwable exception = Assertions.catchThrowable(() -> service.save(createValidBook()) );
+		
+		assertThat(exception).isInstanceOf(BusinessException.class).hasMessage("Isbn ja cadastrado.");
+		verify(repository, Mockito.never()).existsByIsbn("123");
+	}
+	
+	@Test
+	@DisplayName ("Deve separar no total aproximado o filtro ausente do texto \"null\" e valores com separador")
+	@SuppressWarnings("unchecked")
+	public void approximateCountKeyTest() {
+		when(repository.count(Mockito.any(Example.class))).thenReturn(1l, 2l, 3l, 4l);
+		
+		assertThat(service.approximateCount(new Book())).isEqualTo(1);
+		assertThat(service.approximateCount(Book.builder().title("null").build())).isEqualTo(2);
+		assertThat(service.approximateCount(Book.builder().title("a|b").build())).isEqualTo(3);
+		assertThat(service.approximateCount(Book.builder().title("a").author("b|null").build())).isEqualTo(4);
+		assertThat(service.approximateCount(Book.builder().title("NULL").build())).isEqualTo(2);
+	}
+	
+	@Test
+	@DisplayName ("Deve colocar o livro salvo nos caches so depois do commit")
+	public void cachesOnlyAfterCommitTest() {
+		BookSearchIndex searchIndex = new BookSearchIndex();
+		searchIndex.markReady();
+		BookServiceImpl indexedService = new BookServiceImpl(repository, new ApproximateCountCache(), searchIndex,
+				new BookIsbnCache(), new TableChangeCounter(), new SimpleMeterRegistry());
+		Book book = Book.builder().id(1l).author("Fulano").title("as aventuras").isbn("123").build();
+		when (repository.findExistingIsbns(Mockito.anyCollection())).thenReturn(Collections.emptyList());
+		when (repository.saveAll(Mockito.anyList())).thenReturn(Arrays.asList(book));
+		when (repository.findByIsbn("123")).thenReturn(Optional.empty());
+		
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			indexedService.saveAll(Arrays.asList(book));
+			TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(),
+					TransactionSynchronization.STATUS_ROLLED_BACK);
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		
+		assertThat(searchIndex.search("aventuras", null)).isEmpty();
+		assertThat(indexedService.getBookByIsbn("123").isPresent()).isFalse();
+		
+		indexedService.saveAll(Arrays.asList(book));
+		
+		assertThat(searchIndex.search("aventuras", null)).containsExactly(1);
+	}
 }
@@ -2,6 +2,7 @@ package com.luiz.libraryapi.bookService;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -23,6 +24,9 @@ import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
 
 import com.luiz.libraryapi.api.dto.LoanFilterDTO;
 import com.luiz.libraryapi.exception.BusinessException;
@@ -30,7 +34,12 @@ import com.luiz.libraryapi.model.entity.Book;
 import com.luiz.libraryapi.model.entity.Loan;
 import com.luiz.libraryapi.model.repository.LoanRepository;
 import com.luiz.libraryapi.service.LoanService;
+import com.luiz.libraryapi.service.impl.ActiveLoanIndex;
+import com.luiz.libraryapi.service.impl.ApproximateCountCache;
 import com.luiz.libraryapi.service.impl.LoanServiceImpl;
+import com.luiz.libraryapi.service.impl.TableChangeCounter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 @ExtendWith (SpringExtension.class)
 @ActiveProfiles ("test")
@@ -102,6 +111,117 @@ public class LoanServiceTest {
 	}
 	
 	
+	@Test
+	@DisplayName ("Deve usar o indice de emprestimos ativos na pre-checagem e na disponibilidade")
+	public void activeLoanIndexSaveTest() {
+		ActiveLoanIndex activeLoans = new ActiveLoanIndex();
+		service = new LoanServiceImpl(repository, new ApproximateCountCache(), activeLoans, new TableChangeCounter(),
+				new SimpleMeterRegistry());
+		when(repository.findActiveLoanBookIds()).thenReturn(Arrays.asList(2l));
+		((LoanServiceImpl) service).rebuildActiveLoanIndex();
+		
+		Book book = Book.builder().id(1l).build();
+		Loan loan = Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now()).build();
+		when(repository.save(loan)).thenReturn(loan);
+		
+		service.save(loan);
+		Throwable exception = catchThrowable( () -> service.save(loan) );
+		
+		assertThat(exception).isInstanceOf(BusinessException.class).hasMessage("Book already loaned");
+		assertThat(service.getAvailability(Arrays.asList(1l, 2l, 3l)))
+			.containsEntry(1l, false).containsEntry(2l, false).containsEntry(3l, true);
+		verify(repository, never()).existsByBookAndNotReturned(any());
+		
+		loan.setReturned(true);
+		service.update(loan);
+		
+		assertThat(service.getAvailability(Arrays.asList(1l))).containsEntry(1l, true);
+	}
+	
+	@Test
+	@DisplayName ("Deve devolver o emprestimo pelo UPDATE condicionado e liberar o livro no indice")
+	public void returnLoanTest() {
+		ActiveLoanIndex activeLoans = new ActiveLoanIndex();
+		service = new LoanServiceImpl(repository, new ApproximateCountCache(), activeLoans, new TableChangeCounter(),
+				new SimpleMeterRegistry());
+		when(repository.findActiveLoanBookIds()).thenReturn(Arrays.asList(5l));
+		((LoanServiceImpl) service).rebuildActiveLoanIndex();
+		when(repository.findBookIdById(1l)).thenReturn(Optional.of(5l));
+		when(repository.markReturned(1l)).thenReturn(1, 0);
+		when(repository.existsById(1l)).thenReturn(true);
+		
+		assertThat(service.returnLoan(1l)).isEqualTo(LoanService.ReturnOutcome.RETURNED);
+		assertThat(service.getAvailability(Arrays.asList(5l))).containsEntry(5l, true);
+		verify(repository, never()).existsById(any());
+		assertThat(service.returnLoan(1l)).isEqualTo(LoanService.ReturnOutcome.ALREADY_RETURNED);
+		assertThat(service.returnLoan(2l)).isEqualTo(LoanService.ReturnOutcome.NOT_FOUND);
+		verify(repository, Mockito.times(1)).findBookIdById(any());
+		verify(repository, never()).save(any());
+	}
+	
+	@Test
+	@DisplayName ("Deve manter o livro emprestado no indice quando a devolucao sofrer rollback")
+	public void returnLoanRollbackTest() {
+		when(repository.findActiveLoanBookIds()).thenReturn(Arrays.asList(5l));
+		((LoanServiceImpl) service).rebuildActiveLoanIndex();
+		when(repository.findBookIdById(1l)).thenReturn(Optional.of(5l));
+		when(repository.markReturned(1l)).thenReturn(1);
+		
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			assertThat(service.returnLoan(1l)).isEqualTo(LoanService.ReturnOutcome.RETURNED);
+			assertThat(service.getAvailability(Arrays.asList(5l))).containsEntry(5l, false);
+			
+			TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(),
+					TransactionSynchronization.STATUS_ROLLED_BACK);
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		
+		assertThat(service.getAvailability(Arrays.asList(5l))).containsEntry(5l, false);
+		verify(repository, never()).findBookIdById(any());
+	}
+	
+	@Test
+	@DisplayName ("Deve salvar emprestimos em lote recusando livros ja emprestados")
+	public void saveAllTest() {
+		Book free = Book.builder().id(1l).build();
+		Book loaned = Book.builder().id(2l).build();
+		List<Loan> loans = Arrays.asList(
+				Loan.builder().book(free).customer("Fulano").build(),
+				Loan.builder().book(loaned).customer("Ciclano").build(),
+				Loan.builder().book(free).customer("Beltrano").build());
+		
+		when(repository.findActiveLoanBookIdsIn(Mockito.anyCollection())).thenReturn(Arrays.asList(2l));
+		
+		List<Loan> result = service.saveAll(loans);
+		
+		assertThat(result).containsExactly(loans.get(0), null, null);
+		verify(repository).saveAll(Arrays.asList(loans.get(0)));
+		verify(repository, never()).existsByBookAndNotReturned(any());
+	}
+	
+	@Test
+	@DisplayName ("Deve liberar os livros marcados no lote quando a transacao nao chegar ao commit")
+	public void saveAllRollbackTest() {
+		when(repository.findActiveLoanBookIds()).thenReturn(Arrays.asList(2l));
+		((LoanServiceImpl) service).rebuildActiveLoanIndex();
+		List<Loan> loans = Arrays.asList(Loan.builder().book(Book.builder().id(1l).build()).customer("Fulano").build());
+		
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			service.saveAll(loans);
+			assertThat(service.getAvailability(Arrays.asList(1l))).containsEntry(1l, false);
+			
+			TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(),
+					TransactionSynchronization.STATUS_ROLLED_BACK);
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		
+		assertThat(service.getAvailability(Arrays.asList(1l, 2l))).containsEntry(1l, true).containsEntry(2l, false);
+	}
+	
 	@Test
 	@DisplayName ("Deve obter as informacoes de um emprestimo pelo ID")
 	public void getLoanDetaisTest() {
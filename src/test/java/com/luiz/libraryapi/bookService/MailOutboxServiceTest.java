@@ -0,0 +1,105 @@
+package com.luiz.libraryapi.bookService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.luiz.libraryapi.api.dto.MailOutboxStatusDTO;
+import com.luiz.libraryapi.model.entity.MailOutbox;
+import com.luiz.libraryapi.model.entity.MailOutbox.Status;
+import com.luiz.libraryapi.service.MailOutboxService;
+import com.luiz.libraryapi.service.impl.ActiveLoanIndex;
+import com.luiz.libraryapi.service.impl.ApproximateCountCache;
+import com.luiz.libraryapi.service.impl.LoanServiceImpl;
+import com.luiz.libraryapi.service.impl.MailOutboxServiceImpl;
+import com.luiz.libraryapi.service.impl.TableChangeCounter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest(properties = {
+		"application.email.outbox.max-attempts=3",
+		"application.email.outbox.backoff-seconds=30",
+		"application.email.outbox.max-backoff-seconds=45",
+		"application.email.outbox.lease-seconds=300" })
+@Import({ MailOutboxServiceImpl.class, LoanServiceImpl.class, ApproximateCountCache.class, ActiveLoanIndex.class,
+		TableChangeCounter.class, SimpleMeterRegistry.class })
+public class MailOutboxServiceTest {
+
+	@Autowired
+	TestEntityManager entityManager;
+
+	@Autowired
+	MailOutboxService service;
+
+	@Test
+	@DisplayName("Deve reivindicar somente mensagens vencidas e adiar a proxima tentativa pelo lease")
+	public void claimBatchTest() {
+		MailOutbox due = persist(LocalDateTime.now().minusMinutes(1));
+		persist(LocalDateTime.now().plusHours(1));
+
+		List<MailOutbox> batch = service.claimBatch(10);
+
+		assertThat(batch).extracting(MailOutbox::getId).containsExactly(due.getId());
+		assertThat(batch.get(0).getNextAttemptAt()).isAfter(LocalDateTime.now().plusMinutes(4));
+		assertThat(service.claimBatch(10)).isEmpty();
+	}
+
+	@Test
+	@DisplayName("Deve reagendar com backoff exponencial e desistir ao esgotar as tentativas")
+	public void recordFailureBackoffTest() {
+		MailOutbox mail = persist(LocalDateTime.now());
+
+		service.recordResults(Collections.emptyList(), Collections.singletonMap(mail.getId(), "smtp down"));
+		assertThat(mail.getStatus()).isEqualTo(Status.PENDING);
+		assertThat(mail.getAttempts()).isEqualTo(1);
+		assertThat(mail.getLastError()).isEqualTo("smtp down");
+		assertThat(Duration.between(LocalDateTime.now(), mail.getNextAttemptAt()).getSeconds()).isBetween(25L, 30L);
+
+		service.recordResults(Collections.emptyList(), Collections.singletonMap(mail.getId(), "smtp down"));
+		assertThat(Duration.between(LocalDateTime.now(), mail.getNextAttemptAt()).getSeconds()).isBetween(40L, 45L);
+
+		MailOutboxStatusDTO status = service.getStatus();
+		assertThat(status.getPending()).isEqualTo(1);
+		assertThat(status.getRetrying()).isEqualTo(1);
+
+		service.recordResults(Collections.emptyList(), Collections.singletonMap(mail.getId(), "smtp down"));
+		assertThat(mail.getStatus()).isEqualTo(Status.FAILED);
+		assertThat(service.getStatus().getFailed()).isEqualTo(1);
+		assertThat(service.getStatus().getPending()).isZero();
+	}
+
+	@Test
+	@DisplayName("Deve marcar como enviada e limpar o ultimo erro")
+	public void recordSentTest() {
+		MailOutbox mail = persist(LocalDateTime.now());
+		mail.setLastError("timeout");
+
+		service.recordResults(Collections.singletonList(mail.getId()), Collections.emptyMap());
+
+		assertThat(mail.getStatus()).isEqualTo(Status.SENT);
+		assertThat(mail.getSentAt()).isNotNull();
+		assertThat(mail.getLastError()).isNull();
+		assertThat(service.getStatus().getSent()).isEqualTo(1);
+	}
+
+	private MailOutbox persist(LocalDateTime nextAttemptAt) {
+		return entityManager.persistFlushFind(MailOutbox.builder().recipient("cliente@email.com")
+				.message("Atencao").status(Status.PENDING).nextAttemptAt(nextAttemptAt)
+				.createdAt(LocalDateTime.now()).build());
+	}
+}
@@ -0,0 +1,118 @@
+package com.luiz.libraryapi.bookService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.mail.Message;
+import javax.mail.internet.MimeMessage;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.mail.MailSenderAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.luiz.libraryapi.config.MailExecutorConfig;
+import com.luiz.libraryapi.model.entity.Book;
+import com.luiz.libraryapi.model.entity.Loan;
+import com.luiz.libraryapi.service.MailOutboxService;
+import com.luiz.libraryapi.service.ScheduleService;
+import com.luiz.libraryapi.service.impl.ActiveLoanIndex;
+import com.luiz.libraryapi.service.impl.ApproximateCountCache;
+import com.luiz.libraryapi.service.impl.EmailServiceImpl;
+import com.luiz.libraryapi.service.impl.LoanServiceImpl;
+import com.luiz.libraryapi.service.impl.MailOutboxServiceImpl;
+import com.luiz.libraryapi.service.impl.TableChangeCounter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest(properties = {
+		"spring.mail.host=localhost",
+		"spring.mail.port=3025",
+		"spring.mail.username=library",
+		"spring.mail.password=secret",
+		"spring.mail.properties.mail.smtp.starttls.enable=false",
+		"application.email.lateloans.chunk-size=3",
+		"application.email.lateloans.workers=2",
+		"application.email.outbox.batch-size=4" })
+@ImportAutoConfiguration(MailSenderAutoConfiguration.class)
+@Import({ ScheduleService.class, LoanServiceImpl.class, EmailServiceImpl.class, ApproximateCountCache.class,
+		ActiveLoanIndex.class, MailOutboxServiceImpl.class, TableChangeCounter.class, MailExecutorConfig.class,
+		SimpleMeterRegistry.class })
+public class ScheduleServiceTest {
+
+	@RegisterExtension
+	static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP)
+			.withConfiguration(GreenMailConfiguration.aConfig().withUser("library", "secret"));
+
+	@Autowired
+	TestEntityManager entityManager;
+
+	@Autowired
+	ScheduleService scheduleService;
+
+	@Autowired
+	MailOutboxService outboxService;
+
+	@Test
+	@DisplayName("Deve enviar um email para cada emprestimo atrasado e nao devolvido")
+	public void sendMailToLateLoansTest() throws Exception {
+		Set<String> expected = new HashSet<>();
+		for (int i = 0; i < 7; i++) {
+			String email = "cliente" + i + "@email.com";
+			persistLoan(email, LocalDate.now().minusDays(10), null);
+			expected.add(email);
+		}
+		persistLoan("devolvido@email.com", LocalDate.now().minusDays(10), true);
+		persistLoan("em-dia@email.com", LocalDate.now(), null);
+
+		scheduleService.sendMailToLateLoans();
+		assertThat(greenMail.getReceivedMessages()).isEmpty();
+
+		scheduleService.dispatchMailOutbox();
+
+		assertThat(greenMail.waitForIncomingEmail(5000, 7)).isTrue();
+		MimeMessage[] received = greenMail.getReceivedMessages();
+		Set<String> recipients = new HashSet<>();
+		for (MimeMessage message : received) {
+			assertThat(message.getRecipients(Message.RecipientType.TO)).hasSize(1);
+			recipients.add(message.getRecipients(Message.RecipientType.TO)[0].toString());
+		}
+		assertThat(received).hasSize(7);
+		assertThat(recipients).isEqualTo(expected);
+		assertThat(Arrays.stream(received).map(this::subject)).containsOnly("Livro com empréstimo atrasado");
+		assertThat(outboxService.getStatus().getSent()).isEqualTo(7);
+		assertThat(outboxService.getStatus().getPending()).isZero();
+	}
+
+	private String subject(MimeMessage message) {
+		try {
+			return message.getSubject();
+		} catch (javax.mail.MessagingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private void persistLoan(String email, LocalDate loanDate, Boolean returned) {
+		Book book = Book.builder().title("as aventuras").author("Fulano").isbn(email).build();
+		entityManager.persist(book);
+		entityManager.persist(Loan.builder().book(book).customer("Fulano").customerEmail(email)
+				.loanDate(loanDate).returned(returned).build());
+	}
+}
@@ -0,0 +1,128 @@
+package com.luiz.libraryapi.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.luiz.libraryapi.config.ReadReplicaRoutingDataSource.Pin;
+
+public class ReadReplicaRoutingDataSourceTest {
+
+	@AfterEach
+	public void tearDown() {
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+	}
+
+	@Test
+	@DisplayName("Deve mandar so as transacoes somente leitura para as replicas, em rodizio")
+	public void routeReadOnlyToReplicasTest() throws Exception {
+		ReadReplicaRoutingDataSource routing = routing(h2("rr-primary"), h2("rr-replica-a"), h2("rr-replica-b"));
+
+		assertThat(database(routing)).isEqualTo("rr-primary");
+
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		assertThat(database(routing)).isEqualTo("rr-replica-a");
+		assertThat(database(routing)).isEqualTo("rr-replica-b");
+		assertThat(database(routing)).isEqualTo("rr-replica-a");
+
+		try (Pin pin = ReadReplicaRoutingDataSource.pinToPrimary()) {
+			assertThat(database(routing)).isEqualTo("rr-primary");
+		}
+		assertThat(database(routing)).isEqualTo("rr-replica-b");
+	}
+
+	@Test
+	@DisplayName("Deve ler do primario quando a replica falhar e voltar a ela depois da checagem")
+	public void fallbackToPrimaryTest() throws Exception {
+		FlakyDataSource replica = new FlakyDataSource(h2("rr-replica-flaky"));
+		ReadReplicaRoutingDataSource routing = routing(h2("rr-primary-flaky"), replica);
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+		replica.down = true;
+		assertThat(database(routing)).isEqualTo("rr-primary-flaky");
+		assertThat(routing.getReplicaStatus().get("replica-0")).startsWith("DOWN: ");
+
+		replica.down = false;
+		assertThat(database(routing)).isEqualTo("rr-primary-flaky");
+		routing.checkReplicas();
+		assertThat(routing.getReplicaStatus()).containsEntry("replica-0", "UP");
+		assertThat(database(routing)).isEqualTo("rr-replica-flaky");
+	}
+
+	@Test
+	@DisplayName("Deve escolher a replica so no primeiro comando quando atras do LazyConnectionDataSourceProxy")
+	public void lazyConnectionProxyTest() {
+		ReadReplicaRoutingDataSource routing = routing(h2("rr-primary-lazy"), h2("rr-replica-lazy"));
+		DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+		JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+		TransactionTemplate readOnly = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		readOnly.setReadOnly(true);
+		TransactionTemplate readWrite = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+		String readOnlyDatabase = readOnly.execute(status -> jdbc.queryForObject("select name from marker", String.class));
+		String readWriteDatabase = readWrite.execute(status -> jdbc.queryForObject("select name from marker", String.class));
+
+		assertThat(readOnlyDatabase).isEqualTo("rr-replica-lazy");
+		assertThat(readWriteDatabase).isEqualTo("rr-primary-lazy");
+	}
+
+	private static ReadReplicaRoutingDataSource routing(DataSource primary, DataSource... replicas) {
+		Map<String, DataSource> named = new LinkedHashMap<>();
+		for (int i = 0; i < replicas.length; i++) {
+			named.put("replica-" + i, replicas[i]);
+		}
+		return new ReadReplicaRoutingDataSource(primary, named);
+	}
+
+	private static DataSource h2(String name) {
+		JdbcDataSource dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+		dataSource.setUser("sa");
+		JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+		jdbc.execute("create table if not exists marker (name varchar(50))");
+		jdbc.update("delete from marker");
+		jdbc.update("insert into marker (name) values (?)", name);
+		return dataSource;
+	}
+
+	private static String database(DataSource dataSource) throws SQLException {
+		try (Connection connection = dataSource.getConnection()) {
+			return new JdbcTemplate(new SingleConnectionDataSource(connection, true))
+					.queryForObject("select name from marker", String.class);
+		}
+	}
+
+	private static class FlakyDataSource extends DelegatingDataSource {
+
+		private volatile boolean down;
+
+		FlakyDataSource(DataSource target) {
+			super(target);
+		}
+
+		@Override
+		public Connection getConnection() throws SQLException {
+			if (down) {
+				throw new SQLException("connection refused");
+			}
+			return super.getConnection();
+		}
+	}
+}
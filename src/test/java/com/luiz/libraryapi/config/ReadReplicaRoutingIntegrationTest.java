@@ -0,0 +1,77 @@
+package com.luiz.libraryapi.config;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.cookie;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import javax.servlet.http.Cookie;
+
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+/**
+ * Dois H2 em memoria: o primario que a aplicacao migra e uma "replica"
+ * migrada aqui, com livros que so existem nela. Assim da para ver de qual
+ * banco cada requisicao leu.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:rr-app-primary;DB_CLOSE_DELAY=-1",
+		"spring.datasource.username=sa",
+		"application.datasource.replica.urls=" + ReadReplicaRoutingIntegrationTest.REPLICA_URL,
+		"application.datasource.replica.read-your-writes-ms=60000",
+		"management.endpoint.health.show-details=always" })
+@AutoConfigureMockMvc
+public class ReadReplicaRoutingIntegrationTest {
+
+	static final String REPLICA_URL = "jdbc:h2:mem:rr-app-replica;DB_CLOSE_DELAY=-1";
+
+	static {
+		JdbcDataSource replica = new JdbcDataSource();
+		replica.setURL(REPLICA_URL);
+		replica.setUser("sa");
+		Flyway.configure().dataSource(replica)
+				.locations("classpath:db/migration/common", "classpath:db/migration/h2").load().migrate();
+		JdbcTemplate jdbc = new JdbcTemplate(replica);
+		jdbc.update("insert into book (id, title, author, isbn, version) values (1000, 'So na replica', 'Fulano', 'r-1000', 0)");
+		jdbc.update("insert into book (id, title, author, isbn, version) values (1001, 'So na replica', 'Fulano', 'r-1001', 0)");
+	}
+
+	@Autowired
+	MockMvc mvc;
+
+	@Test
+	@DisplayName("Deve ler da replica nos GETs e do primario quando o cliente acabou de escrever")
+	public void readFromReplicaTest() throws Exception {
+		mvc.perform(MockMvcRequestBuilders.get("/api/books/1000"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("title").value("So na replica"));
+
+		Cookie recentWrite = new Cookie(ReadYourWritesFilter.COOKIE, String.valueOf(System.currentTimeMillis() + 60_000));
+		mvc.perform(MockMvcRequestBuilders.get("/api/books/1001").cookie(recentWrite))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	@DisplayName("Deve gravar no primario e marcar o cliente para ler do primario")
+	public void writeSetsReadYourWritesCookieTest() throws Exception {
+		mvc.perform(MockMvcRequestBuilders.post("/api/books")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"title\":\"Novo\",\"author\":\"Fulano\",\"isbn\":\"p-1\"}"))
+				.andExpect(status().isCreated())
+				.andExpect(cookie().exists(ReadYourWritesFilter.COOKIE))
+				.andExpect(cookie().maxAge(ReadYourWritesFilter.COOKIE, 60));
+
+		mvc.perform(MockMvcRequestBuilders.get("/actuator/health/readReplicas"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("details.replica-0").value("UP"));
+	}
+}
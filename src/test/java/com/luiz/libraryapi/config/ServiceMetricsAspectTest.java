@@ -0,0 +1,74 @@
+package com.luiz.libraryapi.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import com.luiz.libraryapi.exception.BusinessException;
+import com.luiz.libraryapi.model.entity.Book;
+import com.luiz.libraryapi.model.entity.Loan;
+import com.luiz.libraryapi.model.repository.LoanRepository;
+import com.luiz.libraryapi.service.LoanService;
+import com.luiz.libraryapi.service.impl.ActiveLoanIndex;
+import com.luiz.libraryapi.service.impl.ApproximateCountCache;
+import com.luiz.libraryapi.service.impl.LoanServiceImpl;
+import com.luiz.libraryapi.service.impl.TableChangeCounter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class ServiceMetricsAspectTest {
+
+	SimpleMeterRegistry registry;
+	LoanRepository repository;
+	LoanService service;
+
+	@BeforeEach
+	public void setUp() {
+		registry = new SimpleMeterRegistry();
+		repository = Mockito.mock(LoanRepository.class);
+		AspectJProxyFactory factory = new AspectJProxyFactory(new LoanServiceImpl(repository,
+				new ApproximateCountCache(), new ActiveLoanIndex(), new TableChangeCounter(), registry));
+		factory.addInterface(LoanService.class);
+		factory.addAspect(new ServiceMetricsAspect(registry));
+		service = factory.getProxy();
+	}
+
+	@Test
+	@DisplayName("Deve medir o tempo de cada metodo do servico com o nome do metodo")
+	public void timeServiceMethodTest() {
+		when(repository.findById(1l)).thenReturn(Optional.empty());
+
+		service.getById(1l);
+		service.getById(1l);
+
+		assertThat(registry.get(ServiceMetricsAspect.METRIC)
+				.tag("service", "LoanService").tag("method", "getById").tag("exception", "none")
+				.timer().count()).isEqualTo(2);
+	}
+
+	@Test
+	@DisplayName("Deve marcar a excecao no timer e contar o emprestimo recusado")
+	public void timeRejectedLoanTest() {
+		Book book = Book.builder().id(1l).build();
+		when(repository.existsByBookAndNotReturned(any())).thenReturn(true);
+
+		Throwable exception = catchThrowable(() -> service.save(Loan.builder().book(book).build()));
+
+		assertThat(exception).isInstanceOf(BusinessException.class);
+		assertThat(registry.get(ServiceMetricsAspect.METRIC)
+				.tag("method", "save").tag("exception", "BusinessException")
+				.timer().count()).isEqualTo(1);
+		assertThat(registry.get("library.loans.rejected").tag("reason", "book_already_loaned")
+				.counter().count()).isEqualTo(1);
+		assertThat(registry.get("library.loans.created").counter().count()).isZero();
+	}
+}
@@ -0,0 +1,88 @@
+package com.luiz.libraryapi.loadtest;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import com.luiz.libraryapi.loadtest.LoadGenerator.Endpoint;
+
+/**
+ * Histogramas por endpoint. "response" conta a partir do horario planejado
+ * (corrigido para coordinated omission), "service" a partir do envio real;
+ * a diferenca entre os dois mostra quanto tempo a requisicao ficou na fila.
+ */
+class LatencyReport {
+
+	private static final double MICROS_PER_MILLI = 1000.0;
+
+	private final Map<Endpoint, Histogram> response = new EnumMap<>(Endpoint.class);
+	private final Map<Endpoint, Histogram> service = new EnumMap<>(Endpoint.class);
+	private final Map<Endpoint, LongAdder> errors = new EnumMap<>(Endpoint.class);
+
+	LatencyReport() {
+		for (Endpoint endpoint : Endpoint.values()) {
+			response.put(endpoint, new ConcurrentHistogram(3));
+			service.put(endpoint, new ConcurrentHistogram(3));
+			errors.put(endpoint, new LongAdder());
+		}
+	}
+
+	void record(Endpoint endpoint, long responseNanos, long serviceNanos, boolean ok) {
+		response.get(endpoint).recordValue(Math.max(0, responseNanos / 1000));
+		service.get(endpoint).recordValue(Math.max(0, serviceNanos / 1000));
+		if (!ok) {
+			errors.get(endpoint).increment();
+		}
+	}
+
+	void print(PrintStream out, long durationSeconds) {
+		out.printf("%-8s %8s %7s %9s %9s %9s %9s %9s %9s %12s%n", "endpoint", "count", "errors", "req/s",
+				"p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "svc p99 ms");
+		Histogram total = new Histogram(3);
+		Histogram totalService = new Histogram(3);
+		long totalErrors = 0;
+		for (Endpoint endpoint : Endpoint.values()) {
+			Histogram histogram = response.get(endpoint);
+			if (histogram.getTotalCount() == 0) {
+				continue;
+			}
+			total.add(histogram);
+			totalService.add(service.get(endpoint));
+			totalErrors += errors.get(endpoint).sum();
+			line(out, endpoint.name().toLowerCase(), histogram, errors.get(endpoint).sum(), durationSeconds,
+					service.get(endpoint).getValueAtPercentile(99) / MICROS_PER_MILLI);
+		}
+		line(out, "total", total, totalErrors, durationSeconds, totalService.getValueAtPercentile(99) / MICROS_PER_MILLI);
+	}
+
+	private static void line(PrintStream out, String name, Histogram h, long errors, long seconds, double serviceP99) {
+		out.printf("%-8s %8d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %12.2f%n", name, h.getTotalCount(), errors,
+				h.getTotalCount() / (double) Math.max(1, seconds),
+				h.getValueAtPercentile(50) / MICROS_PER_MILLI,
+				h.getValueAtPercentile(90) / MICROS_PER_MILLI,
+				h.getValueAtPercentile(99) / MICROS_PER_MILLI,
+				h.getValueAtPercentile(99.9) / MICROS_PER_MILLI,
+				h.getMaxValue() / MICROS_PER_MILLI,
+				serviceP99);
+	}
+
+	/** Grava um .hgrm por endpoint, em milissegundos, para abrir no HdrHistogram plotter. */
+	void write(File directory) throws FileNotFoundException {
+		directory.mkdirs();
+		for (Endpoint endpoint : Endpoint.values()) {
+			Histogram histogram = response.get(endpoint);
+			if (histogram.getTotalCount() == 0) {
+				continue;
+			}
+			try (PrintStream out = new PrintStream(new File(directory, endpoint.name().toLowerCase() + ".hgrm"))) {
+				histogram.outputPercentileDistribution(out, MICROS_PER_MILLI);
+			}
+		}
+	}
+}
@@ -0,0 +1,323 @@
+package com.luiz.libraryapi.loadtest;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.luiz.libraryapi.LibraryApiApplication;
+
+/**
+ * Gerador de carga em loop aberto para a API. Sobe a aplicacao embarcada em
+ * porta aleatoria (ou usa url=...), popula livros e dispara uma mistura de
+ * create/get/search/loan/return numa taxa fixa ou com chegadas de Poisson.
+ * A latencia e medida a partir do horario planejado de cada requisicao, e nao
+ * do envio real, para nao esconder a fila quando o servidor atrasa
+ * (coordinated omission). Usado pelo profile "loadtest" do pom.
+ *
+ * Uso: LoadGenerator [url=] [rate=200] [arrival=poisson|fixed] [duration=60]
+ *      [warmup=10] [seed-books=500] [mix=create=10,get=40,...] [output=dir]
+ */
+public class LoadGenerator {
+
+	enum Endpoint { CREATE, GET, SEARCH, LOAN, RETURN }
+
+	private record OpenLoan(long id, String isbn) { }
+
+	private static final ObjectMapper JSON = new ObjectMapper();
+	private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+	private final String baseUrl;
+	private final HttpClient client;
+	private final LatencyReport report;
+	private final AtomicLong isbnSequence = new AtomicLong();
+	private final String runId = Long.toString(System.currentTimeMillis(), 36);
+	private final List<Long> bookIds = new CopyOnWriteArrayList<>();
+	private final Queue<String> availableIsbns = new ConcurrentLinkedQueue<>();
+	private final Queue<OpenLoan> openLoans = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	LoadGenerator(String baseUrl, HttpClient client, LatencyReport report) {
+		this.baseUrl = baseUrl;
+		this.client = client;
+		this.report = report;
+	}
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = parseOptions(args);
+		double rate = Double.parseDouble(options.getOrDefault("rate", "200"));
+		boolean poisson = !"fixed".equals(options.getOrDefault("arrival", "poisson"));
+		long duration = Long.parseLong(options.getOrDefault("duration", "60"));
+		long warmup = Long.parseLong(options.getOrDefault("warmup", "10"));
+		int seedBooks = Integer.parseInt(options.getOrDefault("seed-books", "500"));
+		Map<Endpoint, Integer> mix = parseMix(options.getOrDefault("mix", "create=10,get=40,search=30,loan=10,return=10"));
+		String output = options.get("output");
+
+		ConfigurableApplicationContext context = null;
+		String url = options.get("url");
+		if (url == null) {
+			// o restart do devtools chamaria este main de novo sem os argumentos
+			System.setProperty("spring.devtools.restart.enabled", "false");
+			context = new SpringApplicationBuilder(LibraryApiApplication.class)
+					.properties("server.port=0", "spring.main.banner-mode=off", "logging.level.com.luiz=WARN")
+					.run();
+			url = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		try {
+			HttpClient client = HttpClient.newBuilder()
+					.executor(executor)
+					.connectTimeout(Duration.ofSeconds(5))
+					.build();
+			LatencyReport report = new LatencyReport();
+			LoadGenerator generator = new LoadGenerator(url, client, report);
+
+			System.out.printf("Target %s, %.0f req/s (%s), warmup %ds, duration %ds, mix %s%n",
+					url, rate, poisson ? "poisson" : "fixed", warmup, duration, mix);
+			generator.seed(seedBooks);
+			generator.run(rate, poisson, mix, TimeUnit.SECONDS.toNanos(warmup), TimeUnit.SECONDS.toNanos(duration));
+
+			report.print(System.out, duration);
+			if (output != null) {
+				report.write(new File(output));
+				System.out.println("Histograms written to " + output);
+			}
+		} finally {
+			executor.shutdownNow();
+			if (context != null) {
+				context.close();
+			}
+		}
+	}
+
+	void seed(int books) {
+		List<CompletableFuture<?>> pending = new ArrayList<>();
+		for (int i = 0; i < books; i++) {
+			pending.add(createBook());
+			if (pending.size() == 50) {
+				CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+				pending.clear();
+			}
+		}
+		CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+		System.out.println("Seeded " + bookIds.size() + " books");
+	}
+
+	/**
+	 * Agenda cada requisicao num horario planejado e nunca espera a resposta
+	 * anterior para disparar a proxima. Se o agendador atrasar, o atraso entra
+	 * na latencia porque o inicio continua sendo o horario planejado.
+	 */
+	void run(double rate, boolean poisson, Map<Endpoint, Integer> mix, long warmupNanos, long durationNanos) {
+		Endpoint[] wheel = buildWheel(mix);
+		double meanIntervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+		long start = System.nanoTime();
+		long measureFrom = start + warmupNanos;
+		long end = measureFrom + durationNanos;
+		long intended = start;
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+
+		while (intended < end) {
+			long wait = intended - System.nanoTime();
+			if (wait > 0) {
+				LockSupport.parkNanos(wait);
+			}
+			Endpoint endpoint = wheel[random.nextInt(wheel.length)];
+			dispatch(endpoint, intended, intended >= measureFrom);
+
+			double interval = poisson ? -Math.log(1.0 - random.nextDouble()) * meanIntervalNanos : meanIntervalNanos;
+			intended += (long) interval;
+		}
+
+		long drainUntil = System.nanoTime() + REQUEST_TIMEOUT.toNanos();
+		while (inFlight.get() > 0 && System.nanoTime() < drainUntil) {
+			LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+		}
+	}
+
+	private void dispatch(Endpoint endpoint, long intended, boolean measured) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		HttpRequest request;
+		OpenLoan loan = null;
+		String isbn = null;
+
+		// sem estado para emprestar/devolver, cai para a operacao que gera esse estado
+		if (endpoint == Endpoint.RETURN && (loan = openLoans.poll()) == null) {
+			endpoint = Endpoint.LOAN;
+		}
+		if (endpoint == Endpoint.LOAN && (isbn = availableIsbns.poll()) == null) {
+			endpoint = Endpoint.CREATE;
+		}
+		if ((endpoint == Endpoint.GET || endpoint == Endpoint.SEARCH) && bookIds.isEmpty()) {
+			endpoint = Endpoint.CREATE;
+		}
+
+		switch (endpoint) {
+		case CREATE:
+			isbn = nextIsbn();
+			request = post("/api/books", bookJson(isbn));
+			break;
+		case GET:
+			request = get("/api/books/" + bookIds.get(random.nextInt(bookIds.size())));
+			break;
+		case SEARCH:
+			request = get("/api/books?title=Livro%20" + random.nextInt(10) + "&page=0&size=20");
+			break;
+		case LOAN:
+			request = post("/api/loans", "{\"isbn\":\"" + isbn + "\",\"customer\":\"Cliente " + random.nextInt(1000)
+					+ "\",\"email\":\"cliente@library-api.com\"}");
+			break;
+		case RETURN:
+			isbn = loan.isbn();
+			request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/loans/" + loan.id()))
+					.timeout(REQUEST_TIMEOUT)
+					.header("Content-Type", "application/json")
+					.method("PATCH", HttpRequest.BodyPublishers.ofString("{\"returned\":true}"))
+					.build();
+			break;
+		default:
+			throw new IllegalStateException(endpoint.name());
+		}
+
+		Endpoint executed = endpoint;
+		String usedIsbn = isbn;
+		long sent = System.nanoTime();
+		inFlight.incrementAndGet();
+		client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+				.whenComplete((response, error) -> {
+					long done = System.nanoTime();
+					inFlight.decrementAndGet();
+					boolean ok = error == null && response.statusCode() < 400;
+					if (measured) {
+						report.record(executed, done - intended, done - sent, ok);
+					}
+					afterResponse(executed, usedIsbn, ok ? response.body() : null);
+				});
+	}
+
+	private void afterResponse(Endpoint endpoint, String isbn, String body) {
+		switch (endpoint) {
+		case CREATE:
+			if (body != null) {
+				rememberBook(isbn, body);
+			}
+			break;
+		case LOAN:
+			if (body != null) {
+				openLoans.add(new OpenLoan(Long.parseLong(body.trim()), isbn));
+			} else {
+				availableIsbns.add(isbn);
+			}
+			break;
+		case RETURN:
+			availableIsbns.add(isbn);
+			break;
+		default:
+			break;
+		}
+	}
+
+	private CompletableFuture<?> createBook() {
+		String isbn = nextIsbn();
+		return client.sendAsync(post("/api/books", bookJson(isbn)), HttpResponse.BodyHandlers.ofString())
+				.thenAccept(response -> {
+					if (response.statusCode() < 400) {
+						rememberBook(isbn, response.body());
+					}
+				});
+	}
+
+	private void rememberBook(String isbn, String body) {
+		try {
+			bookIds.add(JSON.readTree(body).path("id").asLong());
+			availableIsbns.add(isbn);
+		} catch (Exception e) {
+			// resposta inesperada, o livro so nao entra no sorteio
+		}
+	}
+
+	private String nextIsbn() {
+		return "LT-" + runId + "-" + isbnSequence.incrementAndGet();
+	}
+
+	private static String bookJson(String isbn) {
+		int n = ThreadLocalRandom.current().nextInt(10_000);
+		return "{\"title\":\"Livro " + n + "\",\"author\":\"Autor " + (n % 100) + "\",\"isbn\":\"" + isbn + "\"}";
+	}
+
+	private HttpRequest get(String path) {
+		return HttpRequest.newBuilder(URI.create(baseUrl + path))
+				.timeout(REQUEST_TIMEOUT)
+				.header("Accept", "application/json")
+				.GET()
+				.build();
+	}
+
+	private HttpRequest post(String path, String json) {
+		return HttpRequest.newBuilder(URI.create(baseUrl + path))
+				.timeout(REQUEST_TIMEOUT)
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(json))
+				.build();
+	}
+
+	private static Endpoint[] buildWheel(Map<Endpoint, Integer> mix) {
+		List<Endpoint> wheel = new ArrayList<>();
+		mix.forEach((endpoint, weight) -> {
+			for (int i = 0; i < weight; i++) {
+				wheel.add(endpoint);
+			}
+		});
+		if (wheel.isEmpty()) {
+			throw new IllegalArgumentException("mix must have at least one positive weight");
+		}
+		return wheel.toArray(new Endpoint[0]);
+	}
+
+	static Map<String, String> parseOptions(String[] args) {
+		Map<String, String> options = new LinkedHashMap<>();
+		for (String arg : args) {
+			int eq = arg.indexOf('=');
+			if (eq < 0) {
+				throw new IllegalArgumentException("Expected key=value, got " + arg);
+			}
+			String value = arg.substring(eq + 1).trim();
+			if (!value.isEmpty()) {
+				options.put(arg.substring(0, eq).trim(), value);
+			}
+		}
+		return options;
+	}
+
+	static Map<Endpoint, Integer> parseMix(String mix) {
+		Map<Endpoint, Integer> weights = new EnumMap<>(Endpoint.class);
+		for (String part : mix.split(",")) {
+			String[] pair = part.split("=");
+			weights.put(Endpoint.valueOf(pair[0].trim().toUpperCase()), Integer.parseInt(pair[1].trim()));
+		}
+		return weights;
+	}
+}
@@ -2,6 +2,8 @@ package com.luiz.libraryapi.model.repository;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 import org.junit.jupiter.api.DisplayName;
@@ -10,6 +12,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
@@ -64,6 +67,34 @@ public class BookRepositoryTest {
 		
 	}
 	
+	@Test
+	@DisplayName ("Deve incrementar a versao a cada alteracao do livro")
+	public void versionIncrementsOnUpdateTest() {
+		Book book = entityManager.persistFlushFind(createNewBook("123"));
+		assertThat(book.getVersion()).isZero();
+
+		book.setTitle("outro titulo");
+		repository.saveAndFlush(book);
+
+		assertThat(entityManager.find(Book.class, book.getId()).getVersion()).isEqualTo(1L);
+	}
+	
+	@Test
+	@DisplayName ("Deve alterar so as colunas informadas quando a versao confere")
+	public void patchTest() {
+		Book book = entityManager.persistFlushFind(createNewBook("123"));
+
+		assertThat(repository.patch(book.getId(), 1L, Collections.singletonMap("title", "novo titulo"))).isZero();
+		assertThat(repository.patch(book.getId(), 0L, Collections.singletonMap("title", "novo titulo"))).isEqualTo(1);
+		entityManager.clear();
+
+		Book patched = entityManager.find(Book.class, book.getId());
+		assertThat(patched.getTitle()).isEqualTo("novo titulo");
+		assertThat(patched.getAuthor()).isEqualTo(book.getAuthor());
+		assertThat(patched.getVersion()).isEqualTo(1L);
+		assertThat(repository.findVersionById(book.getId())).contains(1L);
+	}
+
 	@Test
 	@DisplayName ("deve obter um livro por id.")
 	public void findByIdTest() {
@@ -105,5 +136,22 @@ public class BookRepositoryTest {
 		
 	}
 		
+	@Test
+	@DisplayName ("deve paginar por cursor sem repetir livros quando ha insercoes entre as paginas")
+	public void findByFilterAfterTest() {
+		for (int i = 0; i < 5; i++) {
+			entityManager.persist(createNewBook("isbn-" + i));
+		}
+		
+		List<Book> firstPage = repository.findByFilterAfter("AVENTURAS", null, null, 0L, PageRequest.of(0, 3));
+		entityManager.persist(createNewBook("isbn-novo"));
+		Long cursor = firstPage.get(firstPage.size() - 1).getId();
+		List<Book> secondPage = repository.findByFilterAfter("AVENTURAS", null, null, cursor, PageRequest.of(0, 3));
+		
+		assertThat(firstPage).hasSize(3);
+		assertThat(secondPage).hasSize(3).doesNotContainAnyElementsOf(firstPage);
+		assertThat(secondPage).allSatisfy(book -> assertThat(book.getId()).isGreaterThan(cursor));
+		assertThat(secondPage.get(2).getIsbn()).isEqualTo("isbn-novo");
+	}
+		
 }
-
@@ -0,0 +1,103 @@
+package com.luiz.libraryapi.model.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.Collections;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.luiz.libraryapi.model.entity.Book;
+import com.luiz.libraryapi.model.entity.Loan;
+
+/**
+ * Sem a transacao do teste: cada chamada ao repositorio abre a sua, como num
+ * request, entao o que repete entre chamadas so pode vir do cache de
+ * segundo nivel.
+ */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class BookSecondLevelCacheTest {
+
+	@Autowired
+	EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	@Autowired
+	BookRepository bookRepository;
+
+	@Autowired
+	LoanRepository loanRepository;
+
+	@AfterEach
+	public void cleanUp() {
+		loanRepository.deleteAll();
+		bookRepository.deleteAll();
+	}
+
+	@Test
+	@DisplayName("Deve servir o livro e o ISBN do cache de segundo nivel a partir da segunda leitura")
+	public void statementsDropWhenCachedTest() {
+		Book book = bookRepository.save(Book.builder().isbn("123").title("As aventuras").author("Fulano").build());
+		Loan loan = loanRepository.save(Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now()).build());
+		entityManagerFactory.getCache().evictAll();
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+		statistics.clear();
+		readLikeLoanEndpoints(loan.getId(), book.getId());
+		long cold = statistics.getPrepareStatementCount();
+
+		statistics.clear();
+		readLikeLoanEndpoints(loan.getId(), book.getId());
+		long warm = statistics.getPrepareStatementCount();
+
+		// so sobra a consulta do emprestimo
+		assertThat(warm).isEqualTo(1);
+		assertThat(cold).isGreaterThan(warm);
+		assertThat(statistics.getDomainDataRegionStatistics(Book.CACHE_REGION).getHitCount()).isPositive();
+		assertThat(statistics.getNaturalIdStatistics(Book.class.getName()).getCacheHitCount()).isPositive();
+	}
+
+	@Test
+	@DisplayName("Deve descartar o livro em cache apos um update em lote")
+	public void bulkUpdateEvictsTest() {
+		Book book = bookRepository.save(Book.builder().isbn("123").title("As aventuras").author("Fulano").build());
+		assertThat(bookRepository.findByIsbn("123")).isPresent();
+
+		int updated = new TransactionTemplate(transactionManager).execute(status ->
+				bookRepository.patch(book.getId(), book.getVersion(), Collections.singletonMap("title", "novo titulo")));
+
+		assertThat(updated).isEqualTo(1);
+
+		assertThat(bookRepository.findById(book.getId())).get().extracting(Book::getTitle).isEqualTo("novo titulo");
+		assertThat(bookRepository.findByIsbn("123")).get().extracting(Book::getTitle).isEqualTo("novo titulo");
+	}
+
+	private void readLikeLoanEndpoints(Long loanId, Long bookId) {
+		// como o open-in-view: Loan.book e lazy e e lido na mesma sessao
+		new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+				assertThat(loanRepository.findById(loanId)).get()
+						.extracting(loan -> loan.getBook().getTitle()).isEqualTo("As aventuras"));
+		assertThat(bookRepository.findById(bookId)).isPresent();
+		assertThat(bookRepository.findByIsbn("123")).isPresent();
+	}
+}
@@ -3,25 +3,38 @@ package com.luiz.libraryapi.model.repository;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import com.luiz.libraryapi.api.dto.LoanDTO;
+import com.luiz.libraryapi.api.mapper.LoanMapper;
 import com.luiz.libraryapi.model.entity.Book;
 import com.luiz.libraryapi.model.entity.Loan;
+import com.luiz.libraryapi.model.projection.LoanSummary;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 public class LoanRepositoryTest {
 	
 	@Autowired
@@ -29,6 +42,9 @@ public class LoanRepositoryTest {
 	
 	@Autowired
 	private LoanRepository repository;
+	
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
 
 	@Test
 	@DisplayName("Deve verificar se exsite emprestimo nao devolvido para o livro.")
@@ -80,6 +96,24 @@ public class LoanRepositoryTest {
 		  assertThat(result).hasSize(1).isEmpty();
 	  }
 	
+	  @Test
+	  @DisplayName ("Deve devolver o emprestimo uma unica vez com um UPDATE condicionado")
+	  public void markReturnedTest () {
+		  Loan loan = createAndPersistLoan(LocalDate.now());
+		  entityManager.flush();
+
+		  assertThat(repository.findBookIdById(loan.getId())).contains(loan.getBook().getId());
+		  assertThat(repository.markReturned(loan.getId())).isEqualTo(1);
+		  assertThat(repository.markReturned(loan.getId())).isZero();
+		  assertThat(repository.markReturned(loan.getId() + 1000)).isZero();
+		  assertThat(repository.findBookIdById(loan.getId() + 1000)).isEmpty();
+
+		  entityManager.clear();
+		  Loan returned = entityManager.find(Loan.class, loan.getId());
+		  assertThat(returned.getReturned()).isTrue();
+		  assertThat(returned.getVersion()).isEqualTo(1L);
+	  }
+	
 	public Loan createAndPersistLoan(LocalDate loanDate) {
 		Book book = createNewBook("123");
 		entityManager.persist(book);
@@ -93,4 +127,181 @@ public class LoanRepositoryTest {
 	private Book createNewBook(String isbn) {
 		return Book.builder().author("Fulano").title("as aventuras").isbn(isbn).build();
 	}
+	
+	  @Test
+	  @DisplayName ("Deve buscar emprestimos por isbn ou customer e seus livros com uma consulta mais o count")
+	  public void findByBookIsbnOrCustomerStatementCountTest() {
+		  for (int i = 0; i < 3; i++) {
+			  Book book = createNewBook("isbn-" + i);
+			  entityManager.persist(book);
+			  entityManager.persist(Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now()).build());
+		  }
+		  Statistics statistics = clearAndResetStatistics();
+		  
+		  Page<Loan> result = repository.findByBookIsbnOrCustomer("321", "Fulano", PageRequest.of(0, 2));
+		  List<LoanDTO> dtos = mapAll(result);
+		  
+		  assertThat(dtos).hasSize(2).allSatisfy(dto -> assertThat(dto.getBook().getTitle()).isNotNull());
+		  assertThat(result.getTotalElements()).isEqualTo(3);
+		  assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+	  }
+	  
+	  @Test
+	  @DisplayName ("Deve buscar emprestimos de um livro com uma consulta mais o count")
+	  public void findByBookStatementCountTest() {
+		  Book book = createNewBook("123");
+		  entityManager.persist(book);
+		  for (int i = 0; i < 3; i++) {
+			  entityManager.persist(Loan.builder().book(book).customer("Fulano " + i).loanDate(LocalDate.now()).build());
+		  }
+		  Statistics statistics = clearAndResetStatistics();
+		  
+		  Page<Loan> result = repository.findByBook(book, PageRequest.of(0, 2));
+		  List<LoanDTO> dtos = mapAll(result);
+		  
+		  assertThat(dtos).hasSize(2).allSatisfy(dto -> assertThat(dto.getBook().getIsbn()).isEqualTo("123"));
+		  assertThat(result.getTotalElements()).isEqualTo(3);
+		  assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+	  }
+	  
+	  @Test
+	  @DisplayName ("Deve paginar emprestimos por cursor ordenando pelo id")
+	  public void findByBookIsbnOrCustomerAfterTest() {
+		  Loan first = createAndPersistLoan(LocalDate.now());
+		  Loan second = Loan.builder().book(first.getBook()).customer("Fulano").loanDate(LocalDate.now()).build();
+		  entityManager.persist(second);
+		  
+		  List<Loan> firstPage = repository.findByBookIsbnOrCustomerAfter("123", "Fulano", 0L, PageRequest.of(0, 1));
+		  List<Loan> secondPage = repository.findByBookIsbnOrCustomerAfter("123", "Fulano", first.getId(), PageRequest.of(0, 1));
+		  List<Loan> lastPage = repository.findByBookIsbnOrCustomerAfter("123", "Fulano", second.getId(), PageRequest.of(0, 1));
+		  
+		  assertThat(firstPage).containsExactly(first);
+		  assertThat(secondPage).containsExactly(second);
+		  assertThat(lastPage).isEmpty();
+	  }
+	  
+	  @Test
+	  @DisplayName ("Deve entregar depois do cursor o emprestimo criado durante a paginacao, com um unico alocador de ids")
+	  public void cursorWithSingleIdAllocatorTest() {
+		  Book book = createNewBook("123");
+		  entityManager.persist(book);
+		  List<Long> allocated = new ArrayList<>();
+		  // passa de um bloco de 50 do sequence pooled para o seguinte
+		  for (int i = 0; i < 60; i++) {
+			  Loan loan = Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now()).build();
+			  entityManager.persist(loan);
+			  allocated.add(loan.getId());
+		  }
+		  assertThat(allocated).isSorted().doesNotHaveDuplicates();
+		  
+		  List<Loan> firstPage = repository.findByBookIsbnOrCustomerAfter("123", "Fulano", 0L, PageRequest.of(0, 60));
+		  Loan late = Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now()).build();
+		  entityManager.persist(late);
+		  List<Loan> nextPage = repository.findByBookIsbnOrCustomerAfter("123", "Fulano",
+				  firstPage.get(firstPage.size() - 1).getId(), PageRequest.of(0, 60));
+		  
+		  assertThat(firstPage).extracting(Loan::getId).containsExactlyElementsOf(allocated);
+		  assertThat(nextPage).containsExactly(late);
+	  }
+	  
+	  @Test
+	  @DisplayName ("Deve buscar uma fatia de emprestimos sem executar o count")
+	  public void findSliceByBookIsbnOrCustomerStatementCountTest() {
+		  for (int i = 0; i < 3; i++) {
+			  Book book = createNewBook("isbn-" + i);
+			  entityManager.persist(book);
+			  entityManager.persist(Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now()).build());
+		  }
+		  Statistics statistics = clearAndResetStatistics();
+		  
+		  Slice<Loan> result = repository.findSliceByBookIsbnOrCustomer("321", "Fulano", PageRequest.of(0, 2));
+		  
+		  assertThat(result.getContent()).hasSize(2);
+		  assertThat(result.hasNext()).isTrue();
+		  assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+		  assertThat(repository.countByBookIsbnOrCustomer("321", "Fulano")).isEqualTo(3);
+	  }
+	  
+	  @Test
+	  @DisplayName ("Deve inserir emprestimos em lote com poucos comandos JDBC")
+	  public void saveAllBatchInsertTest() {
+		  Book book = createNewBook("123");
+		  entityManager.persist(book);
+		  Statistics statistics = clearAndResetStatistics();
+		  
+		  List<Loan> loans = new ArrayList<>();
+		  for (int i = 0; i < 20; i++) {
+			  loans.add(Loan.builder().book(book).customer("Fulano " + i).loanDate(LocalDate.now()).build());
+		  }
+		  repository.saveAll(loans);
+		  entityManager.flush();
+		  
+		  assertThat(loans).allSatisfy(loan -> assertThat(loan.getId()).isNotNull());
+		  assertThat(statistics.getEntityInsertCount()).isEqualTo(20);
+		  assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3);
+	  }
+	  
+	  @Test
+	  @DisplayName ("Deve percorrer todos os emprestimos com seus livros em uma unica consulta")
+	  public void streamAllSummariesTest() {
+		  for (int i = 0; i < 3; i++) {
+			  Book book = createNewBook("isbn-" + i);
+			  entityManager.persist(book);
+			  entityManager.persist(Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now()).build());
+		  }
+		  Statistics statistics = clearAndResetStatistics();
+		  
+		  List<String> isbns;
+		  try (Stream<LoanSummary> loans = repository.streamAllSummaries()) {
+			  isbns = loans.map(LoanSummary::isbn).collect(Collectors.toList());
+		  }
+		  
+		  assertThat(isbns).containsExactly("isbn-0", "isbn-1", "isbn-2");
+		  assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+		  assertThat(statistics.getEntityLoadCount()).isZero();
+	  }
+	  
+	  @Test
+	  @DisplayName ("Deve carregar o livro do emprestimo so quando acessado e sem passar pelo toString")
+	  public void lazyBookTest() {
+		  Loan persisted = createAndPersistLoan(LocalDate.now());
+		  entityManager.getEntityManager().getEntityManagerFactory().getCache().evictAll();
+		  Statistics statistics = clearAndResetStatistics();
+		  
+		  Loan loan = repository.findById(persisted.getId()).get();
+		  
+		  assertThat(loan.toString()).doesNotContain("Book");
+		  assertThat(Hibernate.isInitialized(loan.getBook())).isFalse();
+		  assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+		  
+		  assertThat(loan.getBook().getIsbn()).isEqualTo("123");
+		  assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+		  assertThat(Hibernate.isInitialized(loan.getBook().getLoans())).isFalse();
+	  }
+	  
+	  @Test
+	  @DisplayName ("Deve trazer o livro junto pelo grafo nomeado dos emprestimos atrasados")
+	  public void lateLoansEntityGraphTest() {
+		  createAndPersistLoan(LocalDate.now().minusDays(5));
+		  Statistics statistics = clearAndResetStatistics();
+		  
+		  List<Loan> result = repository.findByLoanDateLessThanAndNotReturned(LocalDate.now().minusDays(4));
+		  
+		  assertThat(result).hasSize(1);
+		  assertThat(Hibernate.isInitialized(result.get(0).getBook())).isTrue();
+		  assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+	  }
+	  
+	  private Statistics clearAndResetStatistics() {
+		  entityManager.flush();
+		  entityManager.clear();
+		  Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		  statistics.clear();
+		  return statistics;
+	  }
+	  
+	  private List<LoanDTO> mapAll(Page<Loan> page) {
+		  LoanMapper loanMapper = Mappers.getMapper(LoanMapper.class);
+		  return page.map(loanMapper::toDto).getContent();
+	  }
 }
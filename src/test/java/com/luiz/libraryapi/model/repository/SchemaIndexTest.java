@@ -0,0 +1,59 @@
+package com.luiz.libraryapi.model.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * Confere no plano do H2 (EXPLAIN) que as consultas mais usadas de livros e
+ * emprestimos usam os indices criados pelas migrations.
+ */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+public class SchemaIndexTest {
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	@DisplayName("Deve buscar livro pelo isbn usando o indice unico")
+	public void isbnLookupUsesIndexTest() {
+		assertThat(explain("select id from book where isbn = '123'")).contains("UX_BOOK_ISBN");
+	}
+
+	@Test
+	@DisplayName("Deve verificar emprestimo ativo do livro usando o indice de livro")
+	public void activeLoanByBookUsesIndexTest() {
+		// o H2 cria um indice proprio para a FK e pode escolhe-lo no lugar de ix_loan_book_returned;
+		// o que importa aqui e que a busca e feita por id_book e nao por varredura da tabela
+		assertThat(explain("select count(id) from loan where id_book = 1 and ( returned is null or returned = false )"))
+				.contains(": ID_BOOK = 1")
+				.doesNotContain("tableScan");
+	}
+
+	@Test
+	@DisplayName("Deve buscar emprestimos pelo cliente usando o indice de cliente")
+	public void loansByCustomerUsesIndexTest() {
+		assertThat(explain("select id from loan where customer = 'Fulano'")).contains("IX_LOAN_CUSTOMER");
+	}
+
+	@Test
+	@DisplayName("Deve buscar emprestimos atrasados usando o indice de data e devolucao")
+	public void lateLoansUseIndexTest() {
+		assertThat(explain("select customer_email from loan where loan_date <= date '2020-01-01' "
+				+ "and ( returned is null or returned = false )"))
+				.contains("IX_LOAN_LOAN_DATE_RETURNED");
+	}
+
+	private String explain(String sql) {
+		return jdbcTemplate.queryForObject("explain " + sql, String.class);
+	}
+}
@@ -8,6 +8,7 @@ import java.awt.print.Pageable;
 import java.util.Arrays;
 import java.util.Optional;
 
+import org.assertj.core.api.Assertions;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -18,8 +19,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -28,17 +32,27 @@ import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilde
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.luiz.libraryapi.api.dto.BookDTO;
+import com.luiz.libraryapi.api.dto.BookDeleteResultDTO;
 import com.luiz.libraryapi.api.resouce.BookController;
 import com.luiz.libraryapi.exception.BusinessException;
 import com.luiz.libraryapi.model.entity.Book;
+import com.luiz.libraryapi.config.BinaryFormatsConfig;
+import com.luiz.libraryapi.service.BookDeleteService;
+import com.luiz.libraryapi.service.BookImportService;
 import com.luiz.libraryapi.service.BookService;
+import com.luiz.libraryapi.service.LoanService;
+import com.luiz.libraryapi.service.impl.TableChangeCounter;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")  
 @WebMvcTest(controllers = BookController.class)
 @AutoConfigureMockMvc
+@Import({ TableChangeCounter.class, BinaryFormatsConfig.class })
 public class BookControllerTest {
 	
 	//rota
@@ -50,6 +64,18 @@ public class BookControllerTest {
 	@MockBean
 	BookService service ;
 	
+	@MockBean
+	LoanService loanService;
+	
+	@MockBean
+	BookImportService importService;
+
+	@MockBean
+	BookDeleteService deleteService;
+	
+	@Autowired
+	TableChangeCounter changes;
+	
 	@Test
 	@DisplayName ("Deve criar um livro com sucesso.")
 	public void createBookTest() throws Exception  {
@@ -149,6 +175,86 @@ public class BookControllerTest {
         ;
     }
 	
+	@Test
+	@DisplayName("Deve responder 304 sem corpo quando o ETag do livro nao mudou")
+	public void getBookNotModifiedTest() throws Exception {
+		Book book = Book.builder().id(1l).title("as aventuras").author("Artur").isbn("123").version(2l).build();
+		BDDMockito.given( service.getById(1l) ).willReturn(Optional.of(book));
+
+		mvc.perform( MockMvcRequestBuilders.get(BOOK_API.concat("/1")).accept(MediaType.APPLICATION_JSON) )
+			.andExpect( status().isOk() )
+			.andExpect( MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"b1.2\"") );
+
+		mvc.perform( MockMvcRequestBuilders.get(BOOK_API.concat("/1")).header(HttpHeaders.IF_NONE_MATCH, "\"b1.2\"") )
+			.andExpect( status().isNotModified() )
+			.andExpect( MockMvcResultMatchers.header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT) )
+			.andExpect( MockMvcResultMatchers.content().string("") );
+
+		book.setVersion(3l);
+		mvc.perform( MockMvcRequestBuilders.get(BOOK_API.concat("/1")).header(HttpHeaders.IF_NONE_MATCH, "\"b1.2\"") )
+			.andExpect( status().isOk() )
+			.andExpect( MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"b1.3\"") );
+	}
+
+	@Test
+	@DisplayName("Deve aplicar o merge patch com a versao do If-Match e devolver o novo ETag")
+	public void patchBookTest() throws Exception {
+		BDDMockito.given( service.patch(1l, 2l, java.util.Collections.singletonMap("title", "novo titulo")) )
+			.willReturn( BookService.PatchOutcome.PATCHED );
+
+		mvc.perform( MockMvcRequestBuilders.patch(BOOK_API.concat("/1"))
+				.contentType("application/merge-patch+json")
+				.header(HttpHeaders.IF_MATCH, "\"b1.2\"")
+				.content("{\"title\":\"novo titulo\"}") )
+			.andExpect( status().isNoContent() )
+			.andExpect( MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"b1.3\"") );
+
+		Mockito.verify(service, Mockito.never()).getById(Mockito.anyLong());
+	}
+
+	@Test
+	@DisplayName("Deve responder 412 para If-Match desatualizado e 409 para versao do corpo desatualizada")
+	public void patchBookVersionMismatchTest() throws Exception {
+		BDDMockito.given( service.patch(Mockito.eq(1l), Mockito.anyLong(), Mockito.any()) )
+			.willReturn( BookService.PatchOutcome.VERSION_MISMATCH );
+
+		mvc.perform( MockMvcRequestBuilders.patch(BOOK_API.concat("/1"))
+				.contentType("application/merge-patch+json")
+				.header(HttpHeaders.IF_MATCH, "\"b1.2\"")
+				.content("{\"author\":\"Ciclano\"}") )
+			.andExpect( status().isPreconditionFailed() );
+
+		mvc.perform( MockMvcRequestBuilders.patch(BOOK_API.concat("/1"))
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"author\":\"Ciclano\",\"version\":2}") )
+			.andExpect( status().isConflict() );
+
+		mvc.perform( MockMvcRequestBuilders.patch(BOOK_API.concat("/1"))
+				.contentType("application/merge-patch+json")
+				.header(HttpHeaders.IF_MATCH, "\"b9.2\"")
+				.content("{\"author\":\"Ciclano\"}") )
+			.andExpect( status().isPreconditionFailed() );
+	}
+
+	@Test
+	@DisplayName("Deve responder 304 na listagem sem consultar o servico enquanto a tabela nao mudar")
+	public void findBooksNotModifiedTest() throws Exception {
+		BDDMockito.given( service.findSlice(Mockito.any(Book.class), Mockito.any(org.springframework.data.domain.Pageable.class)) )
+			.willReturn( new SliceImpl<Book>(Arrays.asList()) );
+		String etag = mvc.perform( MockMvcRequestBuilders.get(BOOK_API.concat("?title=x&count=none")) )
+			.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		Mockito.clearInvocations(service);
+
+		mvc.perform( MockMvcRequestBuilders.get(BOOK_API.concat("?title=x&count=none")).header(HttpHeaders.IF_NONE_MATCH, etag) )
+			.andExpect( status().isNotModified() )
+			.andExpect( MockMvcResultMatchers.header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT) );
+		Mockito.verifyNoInteractions(service);
+
+		changes.booksChanged();
+		mvc.perform( MockMvcRequestBuilders.get(BOOK_API.concat("?title=x&count=none")).header(HttpHeaders.IF_NONE_MATCH, etag) )
+			.andExpect( status().isOk() );
+	}
+	
 	   @Test
 	    @DisplayName("Deve retornar resource not found quando o livro procurado não existir")
 	    public void bookNotFoundTest() throws Exception {
@@ -190,6 +296,45 @@ public class BookControllerTest {
 	                .andExpect( status().isNotFound() );
 	    }
 	   
+	   @Test
+	    @DisplayName("Deve apagar em lote os livros pelos ids informados")
+	    public void deleteBooksByIdsTest() throws Exception {
+	        BDDMockito.given(deleteService.deleteByIds(Arrays.asList(1l, 2l), BookDeleteService.LoanPolicy.CASCADE))
+	            .willReturn(BookDeleteResultDTO.builder().books(2).loans(1).build());
+
+	        mvc.perform( MockMvcRequestBuilders.delete(BOOK_API).param("ids", "1,2").param("loans", "cascade") )
+	            .andExpect( status().isOk() )
+	            .andExpect( jsonPath("books").value(2) )
+	            .andExpect( jsonPath("loans").value(1) );
+	    }
+
+	   @Test
+	    @DisplayName("Deve apagar em lote pelo filtro recusando emprestimos por padrao")
+	    public void deleteBooksByFilterTest() throws Exception {
+	        BDDMockito.given(deleteService.deleteByFilter(Mockito.any(Book.class), Mockito.eq(BookDeleteService.LoanPolicy.REJECT)))
+	            .willReturn(BookDeleteResultDTO.builder().books(3).build());
+
+	        mvc.perform( MockMvcRequestBuilders.delete(BOOK_API).param("author", "Fulano") )
+	            .andExpect( status().isOk() )
+	            .andExpect( jsonPath("books").value(3) );
+
+	        Mockito.verify(deleteService).deleteByFilter(Book.builder().author("Fulano").build(), BookDeleteService.LoanPolicy.REJECT);
+	    }
+
+	   @Test
+	    @DisplayName("Deve recusar exclusao em lote com politica invalida ou com ids e filtro juntos")
+	    public void invalidDeleteBooksTest() throws Exception {
+	        mvc.perform( MockMvcRequestBuilders.delete(BOOK_API).param("ids", "1").param("loans", "archive") )
+	            .andExpect( status().isBadRequest() )
+	            .andExpect( jsonPath("errors[0]").value("Invalid loans policy: archive") );
+
+	        mvc.perform( MockMvcRequestBuilders.delete(BOOK_API).param("ids", "1").param("title", "Java") )
+	            .andExpect( status().isBadRequest() )
+	            .andExpect( jsonPath("errors[0]").value("Use either ids or a filter, not both") );
+
+	        Mockito.verifyNoInteractions(deleteService);
+	    }
+
 	   @Test
 	    @DisplayName("Deve atualizar um livro")
 	    public void updateBookTest1() throws Exception {
@@ -302,6 +447,49 @@ public class BookControllerTest {
 		   
 	   }
 	
+	   @Test
+	   @DisplayName("Deve responder em CBOR quando o cliente pedir application/cbor")
+	   public void getBookDetailsCborTest() throws Exception {
+		   Book book = Book.builder().id(1l).title("as aventuras").author("Arthur").isbn("001").build();
+		   BDDMockito.given( service.getById(1l) ).willReturn(Optional.of(book));
+
+		   byte[] body = mvc.perform( MockMvcRequestBuilders.get(BOOK_API.concat("/1")).accept(MediaType.APPLICATION_CBOR) )
+				   .andExpect( status().isOk() )
+				   .andExpect( MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_CBOR) )
+				   .andExpect( MockMvcResultMatchers.header().stringValues(HttpHeaders.VARY, HttpHeaders.ACCEPT) )
+				   .andReturn().getResponse().getContentAsByteArray();
+
+		   JsonNode dto = new ObjectMapper(new CBORFactory()).readTree(body);
+		   Assertions.assertThat(dto.get("title").asText()).isEqualTo("as aventuras");
+		   Assertions.assertThat(dto.get("isbn").asText()).isEqualTo("001");
+	   }
+
+	   @Test
+	   @DisplayName("Deve aceitar e responder listagens em Smile")
+	   public void findBooksSmileTest() throws Exception {
+		   MediaType smile = MediaType.parseMediaType("application/x-jackson-smile");
+		   ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+		   Book book = Book.builder().id(1l).title("some title").author("some author").isbn("321").build();
+		   BDDMockito.given( service.find(Mockito.any(Book.class), Mockito.any(org.springframework.data.domain.Pageable.class)) )
+				   .willReturn( new PageImpl<Book>( Arrays.asList(book), PageRequest.of(0, 100), 1 ) );
+
+		   byte[] body = mvc.perform( MockMvcRequestBuilders.get(BOOK_API).param("size", "100").accept(smile) )
+				   .andExpect( status().isOk() )
+				   .andExpect( MockMvcResultMatchers.content().contentType(smile) )
+				   .andReturn().getResponse().getContentAsByteArray();
+
+		   JsonNode page = smileMapper.readTree(body);
+		   Assertions.assertThat(page.get("content")).hasSize(1);
+		   Assertions.assertThat(page.get("content").get(0).get("isbn").asText()).isEqualTo("321");
+		   Assertions.assertThat(page.get("totalElements").asLong()).isEqualTo(1);
+
+		   BDDMockito.given( service.save(Mockito.any(Book.class)) ).willReturn(book);
+		   mvc.perform( MockMvcRequestBuilders.post(BOOK_API).contentType(smile).accept(smile)
+				   .content(smileMapper.writeValueAsBytes(createNewBook())) )
+				   .andExpect( status().isCreated() )
+				   .andExpect( MockMvcResultMatchers.content().contentType(smile) );
+	   }
+	
 	   private BookDTO createNewBook() {
 			return BookDTO.builder().author("Arthur").title("as aventuras").isbn("001").build();
 	   }
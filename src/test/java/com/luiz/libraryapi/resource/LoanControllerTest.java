@@ -20,8 +20,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -41,11 +43,13 @@ import com.luiz.libraryapi.model.entity.Book;
 import com.luiz.libraryapi.model.entity.Loan;
 import com.luiz.libraryapi.service.BookService;
 import com.luiz.libraryapi.service.LoanService;
+import com.luiz.libraryapi.service.impl.TableChangeCounter;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")  
 @WebMvcTest(controllers = LoanController.class)
 @AutoConfigureMockMvc
+@Import(TableChangeCounter.class)
 public class LoanControllerTest {
 	
 	static final String LOAN_API = "/api/loans";
@@ -140,20 +144,22 @@ public class LoanControllerTest {
 	public void returnBookTest() throws Exception {
 		//cenario (returned: true)
 		ReturnedLoanDTO dto = ReturnedLoanDTO.builder().returned(true).build();
-		Loan loan = Loan.builder().id(1l).build();
 		
-		BDDMockito.given(loanService.getById(Mockito.anyLong()))
-		.willReturn(Optional.of(loan));
+		BDDMockito.given(loanService.returnLoan(1l))
+		.willReturn(LoanService.ReturnOutcome.RETURNED);
 		
 		String json = new ObjectMapper().writeValueAsString(dto);
 		
 		mvc.perform(
 				patch(LOAN_API.concat("/1"))
 				.accept(MediaType.APPLICATION_JSON)
+				.contentType(MediaType.APPLICATION_JSON)
 				.content(json)
 				).andExpect( status () .isOk());
 		
-		Mockito.verify(loanService, Mockito.times(1)).update(loan);
+		Mockito.verify(loanService, Mockito.times(1)).returnLoan(1l);
+		Mockito.verify(loanService, Mockito.never()).getById(Mockito.anyLong());
+		Mockito.verify(loanService, Mockito.never()).update(Mockito.any());
 	}
 	
 	@Test
@@ -163,17 +169,34 @@ public class LoanControllerTest {
 		ReturnedLoanDTO dto = ReturnedLoanDTO.builder().returned(true).build();
 		
 		
-		BDDMockito.given(loanService.getById(Mockito.anyLong()))
-			.willReturn(Optional.empty());
+		BDDMockito.given(loanService.returnLoan(Mockito.anyLong()))
+			.willReturn(LoanService.ReturnOutcome.NOT_FOUND);
 		
 		String json = new ObjectMapper().writeValueAsString(dto);
 		
 		mvc.perform(
 				patch(LOAN_API.concat("/1"))
 				.accept(MediaType.APPLICATION_JSON)
+				.contentType(MediaType.APPLICATION_JSON)
 				.content(json)
 				).andExpect( status () .isNotFound());
 	}
+	
+	@Test
+	@DisplayName ("Deve retornar 409 quando o emprestimo ja foi devolvido")
+	public void returnAlreadyReturnedLoanTest() throws Exception {
+		BDDMockito.given(loanService.returnLoan(1l))
+			.willReturn(LoanService.ReturnOutcome.ALREADY_RETURNED);
+		
+		String json = new ObjectMapper().writeValueAsString(ReturnedLoanDTO.builder().returned(true).build());
+		
+		mvc.perform(
+				patch(LOAN_API.concat("/1"))
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(json)
+				).andExpect( status () .isConflict())
+				.andExpect( jsonPath("errors[0]").value("Loan already returned") );
+	}
 	  @Test
 	   @DisplayName("Deve filtrar emprestimos.")
 	   public void findLoansTest() throws Exception {
@@ -208,4 +231,27 @@ public class LoanControllerTest {
 	  
 		
 	
+	@Test
+	@DisplayName("Deve obter o emprestimo com ETag que muda junto com a versao do livro")
+	public void getLoanNotModifiedTest() throws Exception {
+		Book book = Book.builder().id(1l).isbn("123").version(4l).build();
+		Loan loan = Loan.builder().id(7l).customer("Fulano").book(book).loanDate(LocalDate.now()).version(1l).build();
+		BDDMockito.given(loanService.getById(7l)).willReturn(Optional.of(loan));
+
+		mvc.perform(MockMvcRequestBuilders.get(LOAN_API.concat("/7")).accept(MediaType.APPLICATION_JSON))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("id").value(7))
+			.andExpect(jsonPath("isbn").value("123"))
+			.andExpect(content().string(Matchers.not(Matchers.emptyString())))
+			.andExpect(org.springframework.test.web.servlet.result.MockMvcResultMatchers.header()
+					.string(HttpHeaders.ETAG, "\"l7.1.4\""));
+
+		mvc.perform(MockMvcRequestBuilders.get(LOAN_API.concat("/7")).header(HttpHeaders.IF_NONE_MATCH, "\"l7.1.4\""))
+			.andExpect(status().isNotModified());
+
+		book.setVersion(5l);
+		mvc.perform(MockMvcRequestBuilders.get(LOAN_API.concat("/7")).header(HttpHeaders.IF_NONE_MATCH, "\"l7.1.4\""))
+			.andExpect(status().isOk());
+	}
+
 }